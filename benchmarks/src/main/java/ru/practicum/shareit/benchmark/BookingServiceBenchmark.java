@@ -0,0 +1,153 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingOutputDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Списки бронирований со смещением и по курсору, создание и подтверждение.
+ * Длинная история одной вещи - {@code -p users=2 -p itemsPerOwner=1 -p bookingsPerItem=100000},
+ * те же списки без вторичных индексов - {@code -p indexes=true,false}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingServiceBenchmark {
+
+    private static final int PAGE_SIZE = 10;
+
+    /**
+     * Последняя страница бронирований пользователя: смещение и курсор, указывающие на нее.
+     */
+    @State(Scope.Benchmark)
+    public static class LastPage {
+
+        int from;
+        String cursor;
+
+        @Setup(Level.Trial)
+        public void find(ServerState state) {
+            from = (int) Math.max(state.data.getUserBookings() - 1, 0) / PAGE_SIZE * PAGE_SIZE;
+            cursor = from == 0 ? null : BookingCursor.next(state.bookingService.getBookingsByBookerId(
+                    state.data.getUser(), "ALL", from - PAGE_SIZE, PAGE_SIZE), PAGE_SIZE);
+        }
+    }
+
+    /**
+     * Каждое новое бронирование получает свои сутки в далеком будущем, поэтому не пересекается с другими.
+     * История вещи засеяна по суткам вокруг текущей даты, новые сутки начинаются после нее.
+     */
+    @State(Scope.Benchmark)
+    public static class Slots {
+
+        private final AtomicLong next = new AtomicLong();
+        private LocalDateTime first;
+
+        @Setup(Level.Trial)
+        public void start(ServerState state) {
+            first = LocalDateTime.now().plusDays(state.bookingsPerItem).plusYears(10);
+        }
+
+        BookingDto booking(Long itemId) {
+            LocalDateTime start = first.plusDays(next.getAndIncrement());
+            return BookingDto.builder()
+                    .itemId(itemId)
+                    .start(start)
+                    .end(start.plusHours(20))
+                    .build();
+        }
+    }
+
+    @Benchmark
+    public List<BookingOutputDto> getBookingsByBookerIdFirstPage(ServerState state) {
+        return state.bookingService.getBookingsByBookerId(state.data.getUser(), "ALL", 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<BookingOutputDto> getBookingsByBookerIdLastPage(ServerState state, LastPage page) {
+        return state.bookingService.getBookingsByBookerId(state.data.getUser(), "ALL", page.from, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<BookingOutputDto> getBookingsByBookerIdLastPageAfter(ServerState state, LastPage page) {
+        if (page.cursor == null) {
+            return getBookingsByBookerIdFirstPage(state);
+        }
+        return state.bookingService.getBookingsByBookerIdAfter(state.data.getUser(), "ALL", page.cursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<BookingOutputDto> getWaitingBookingsByBooker(ServerState state) {
+        return state.bookingService.getBookingsByBookerId(state.data.getUser(), "WAITING", 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<BookingOutputDto> getFutureBookingsByOwner(ServerState state) {
+        return state.bookingService.getBookingsByUserId(state.data.getUser(), "FUTURE", 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public BookingOutputDto getBooking(ServerState state) {
+        return state.bookingService.getBooking(state.data.getUser(), state.data.getBooking());
+    }
+
+    /**
+     * Создание проверяет пересечение с подтвержденными бронированиями вещи.
+     */
+    @Benchmark
+    public BookingOutputDto create(ServerState state, Slots slots) {
+        return state.bookingService.create(slots.booking(state.data.getItem()), state.data.getUserIds().get(1));
+    }
+
+    /**
+     * Создание из нескольких потоков: вещи и арендаторы разные, владелец у каждого потока свой.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(4)
+    public BookingOutputDto createForOwnerPerThread(ServerState state, Slots slots, ThreadParams thread) {
+        int owner = thread.getThreadIndex() % state.users;
+        return state.bookingService.create(slots.booking(state.data.getItemIds().get(owner * state.itemsPerOwner)),
+                state.data.getUserIds().get((owner + 1) % state.users));
+    }
+
+    /**
+     * То же, но все вещи одного владельца: создания ждут друг друга на строке его версии списков
+     * до конца транзакции. Разница с createForOwnerPerThread - цена общей строки владельца.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(4)
+    public BookingOutputDto createForOneOwner(ServerState state, Slots slots, ThreadParams thread) {
+        int index = thread.getThreadIndex() % (state.users - 1);
+        return state.bookingService.create(slots.booking(state.data.getItemIds().get(index % state.itemsPerOwner)),
+                state.data.getUserIds().get(index + 1));
+    }
+
+    /**
+     * Пропускная способность подтверждений из нескольких потоков: у каждого потока вещь своего владельца,
+     * выбранного по номеру потока в JMH.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(4)
+    public BookingOutputDto createAndApprove(ServerState state, Slots slots, ThreadParams thread) {
+        int owner = thread.getThreadIndex() % state.users;
+        Long item = state.data.getItemIds().get(owner * state.itemsPerOwner);
+        BookingOutputDto booking = state.bookingService.create(slots.booking(item),
+                state.data.getUserIds().get((owner + 1) % state.users));
+        return state.bookingService.approve(state.data.getUserIds().get(owner), booking.getId(), true);
+    }
+}
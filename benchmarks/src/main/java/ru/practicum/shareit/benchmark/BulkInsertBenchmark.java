@@ -0,0 +1,105 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Массовая вставка через JPA: одна транзакция на {@link #ROWS} строк, результат - строк в секунду.
+ * Влияние пакетов JDBC - {@code -p jdbcBatchSize=1,50}. Встроенная H2 не платит за обращение к БД, поэтому
+ * разница видна на H2 в режиме сервера: {@code java -cp h2.jar org.h2.tools.Server -tcp -ifNotExists} и
+ * {@code -jvmArgs -Dspring.datasource.url=jdbc:h2:tcp://localhost/mem:bench}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(BulkInsertBenchmark.ROWS)
+public class BulkInsertBenchmark {
+
+    static final int ROWS = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Repositories {
+
+        TransactionTemplate transaction;
+        EntityManager entityManager;
+        JdbcTemplate jdbcTemplate;
+        BookingRepository bookingRepository;
+        ItemRepository itemRepository;
+        LocalDateTime start;
+        long maxBookingId;
+        long maxItemId;
+
+        @Setup(Level.Trial)
+        public void find(ServerState state) {
+            transaction = new TransactionTemplate(state.context.getBean(PlatformTransactionManager.class));
+            entityManager = state.context.getBean(EntityManager.class);
+            jdbcTemplate = state.context.getBean(JdbcTemplate.class);
+            bookingRepository = state.context.getBean(BookingRepository.class);
+            itemRepository = state.context.getBean(ItemRepository.class);
+            start = LocalDateTime.now().plusYears(10);
+            maxBookingId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM bookings", Long.class);
+            maxItemId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM items", Long.class);
+        }
+
+        /**
+         * Вставленное за итерацию удаляется, чтобы объем таблиц не рос от итерации к итерации.
+         */
+        @TearDown(Level.Iteration)
+        public void clean() {
+            jdbcTemplate.update("DELETE FROM bookings WHERE id > ?", maxBookingId);
+            jdbcTemplate.update("DELETE FROM items WHERE id > ?", maxItemId);
+        }
+    }
+
+    @Benchmark
+    public void bookings(ServerState state, Repositories repositories) {
+        repositories.transaction.executeWithoutResult(status -> {
+            Item item = repositories.entityManager.getReference(Item.class, state.data.getItem());
+            User booker = repositories.entityManager.getReference(User.class, state.data.getUserIds().get(1));
+            List<Booking> bookings = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                bookings.add(Booking.builder()
+                        .item(item)
+                        .booker(booker)
+                        .start(repositories.start.plusHours(i))
+                        .end(repositories.start.plusHours(i).plusMinutes(30))
+                        .status(Status.WAITING)
+                        .build());
+            }
+            repositories.bookingRepository.saveAll(bookings);
+        });
+    }
+
+    @Benchmark
+    public void items(ServerState state, Repositories repositories) {
+        repositories.transaction.executeWithoutResult(status -> {
+            User owner = repositories.entityManager.getReference(User.class, state.data.getUser());
+            List<Item> items = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                items.add(Item.builder()
+                        .name("Вещь " + i)
+                        .description("Описание вещи " + i)
+                        .available(true)
+                        .owner(owner)
+                        .build());
+            }
+            repositories.itemRepository.saveAll(items);
+        });
+    }
+}
@@ -0,0 +1,172 @@
+package ru.practicum.shareit.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.StreamUtils;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.service.ItemService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Заполняет схему пакетными INSERT через JDBC - на порядки быстрее сервисов, поэтому
+ * объем данных ограничен только памятью H2.
+ */
+@Slf4j
+class DataSeeder {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String[] NAMES = {"Дрель", "Отвертка", "Пила", "Лестница", "Палатка", "Велосипед",
+            "Перфоратор", "Шуруповерт"};
+    private static final Pattern INDEX = Pattern.compile("CREATE INDEX IF NOT EXISTS (\\w+)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ItemService itemService;
+    private final int users;
+    private final int itemsPerOwner;
+    private final int bookingsPerItem;
+    private final int requestsPerUser;
+
+    DataSeeder(ApplicationContext context, int users, int itemsPerOwner, int bookingsPerItem, int requestsPerUser) {
+        if (users < 2) {
+            throw new IllegalArgumentException("Нужно не меньше двух пользователей: владелец и арендатор");
+        }
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+        this.itemService = context.getBean(ItemService.class);
+        this.users = users;
+        this.itemsPerOwner = itemsPerOwner;
+        this.bookingsPerItem = bookingsPerItem;
+        this.requestsPerUser = requestsPerUser;
+    }
+
+    DataSet seed() {
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int u = 0; u < users; u++) {
+            rows.add(new Object[]{"User " + u, "user" + u + "@bench.ru"});
+        }
+        insert("INSERT INTO users (name, email) VALUES (?, ?)", rows);
+        jdbcTemplate.update("INSERT INTO user_lists_versions (user_id) SELECT id FROM users");
+        List<Long> userIds = ids("users");
+
+        rows = new ArrayList<>();
+        for (int u = 0; u < users; u++) {
+            for (int r = 0; r < requestsPerUser; r++) {
+                rows.add(new Object[]{"Нужна вещь " + r, userIds.get(u), Timestamp.valueOf(now.minusHours(r))});
+            }
+        }
+        insert("INSERT INTO requests (description, requestor_id, created) VALUES (?, ?, ?)", rows);
+        List<Long> requestIds = ids("requests");
+
+        rows = new ArrayList<>();
+        for (int u = 0; u < users; u++) {
+            for (int i = 0; i < itemsPerOwner; i++) {
+                Long requestId = requestsPerUser > 0 && i % 4 == 0
+                        ? requestIds.get(((u + 1) % users) * requestsPerUser + i % requestsPerUser)
+                        : null;
+                rows.add(new Object[]{NAMES[i % NAMES.length] + " " + u + "-" + i,
+                        "Описание вещи " + NAMES[(i + u) % NAMES.length].toLowerCase(), i % 5 != 4,
+                        userIds.get(u), requestId});
+            }
+        }
+        insert("INSERT INTO items (name, description, is_available, owner_id, request_id) VALUES (?, ?, ?, ?, ?)",
+                rows);
+        List<Long> itemIds = ids("items");
+
+        long userBookings = seedBookings(now, userIds, itemIds);
+
+        itemIds.forEach(itemService::refreshBookingSummary);
+        // статистика для планировщика: без нее PostgreSQL оценивает только что заполненные таблицы как пустые
+        jdbcTemplate.execute("ANALYZE");
+        log.warn("Заполнено: пользователей - {}, вещей - {}, бронирований - {}", userIds.size(), itemIds.size(),
+                (long) itemIds.size() * bookingsPerItem);
+        Long booking = jdbcTemplate.queryForObject("SELECT MIN(id) FROM bookings WHERE item_id = ?", Long.class,
+                itemIds.get(0));
+        return new DataSet(userIds, itemIds, userIds.get(0), itemIds.get(0), booking, userBookings);
+    }
+
+    /**
+     * У каждой вещи непересекающиеся суточные бронирования, половина в прошлом и половина в будущем.
+     * Каждое десятое ждет подтверждения, каждое десятое отклонено.
+     */
+    private long seedBookings(LocalDateTime now, List<Long> userIds, List<Long> itemIds) {
+        LocalDateTime first = now.minusDays(bookingsPerItem / 2);
+        long userBookings = 0;
+        List<Object[]> bookings = new ArrayList<>();
+        List<Object[]> comments = new ArrayList<>();
+
+        for (int item = 0; item < itemIds.size(); item++) {
+            int owner = item / itemsPerOwner;
+            for (int b = 0; b < bookingsPerItem; b++) {
+                int booker = (owner + 1 + b % (users - 1)) % users;
+                if (booker == 0) {
+                    userBookings++;
+                }
+                LocalDateTime start = first.plusDays(b);
+                bookings.add(new Object[]{Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(20)),
+                        itemIds.get(item), userIds.get(booker), status(b).name()});
+                if (b == 2 && start.plusHours(20).isBefore(now)) {
+                    comments.add(new Object[]{"Отличная вещь", itemIds.get(item), userIds.get(booker),
+                            Timestamp.valueOf(now)});
+                }
+                if (bookings.size() == BATCH_SIZE) {
+                    insertBookings(bookings);
+                    bookings.clear();
+                }
+            }
+        }
+        insertBookings(bookings);
+        insert("INSERT INTO comments (text, item_id, author_id, created) VALUES (?, ?, ?, ?)", comments);
+        return userBookings;
+    }
+
+    void dropIndexes() {
+        try {
+            String schema = StreamUtils.copyToString(new ClassPathResource("schema.sql").getInputStream(),
+                    StandardCharsets.UTF_8);
+            Matcher matcher = INDEX.matcher(schema);
+            while (matcher.find()) {
+                jdbcTemplate.execute("DROP INDEX IF EXISTS " + matcher.group(1));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Status status(int booking) {
+        switch (booking % 10) {
+            case 0:
+                return Status.WAITING;
+            case 1:
+                return Status.REJECTED;
+            default:
+                return Status.APPROVED;
+        }
+    }
+
+    private void insertBookings(List<Object[]> rows) {
+        insert("INSERT INTO bookings (start_date, end_date, item_id, booker_id, status) VALUES (?, ?, ?, ?, ?)",
+                rows);
+    }
+
+    private void insert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+
+    private List<Long> ids(String table) {
+        return jdbcTemplate.queryForList("SELECT id FROM " + table + " ORDER BY id", Long.class);
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.benchmark;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Идентификаторы заполненных данных. Пользователь {@link #getUser()} владеет вещами,
+ * бронирует чужие и оставляет запросы - через него меряются списки. Вещь {@link #getItem()}
+ * и бронирование {@link #getBooking()} принадлежат ему.
+ */
+@Getter
+@AllArgsConstructor
+public class DataSet {
+
+    private final List<Long> userIds;
+    private final List<Long> itemIds;
+    private final Long user;
+    private final Long item;
+    private final Long booking;
+    private final long userBookings;
+}
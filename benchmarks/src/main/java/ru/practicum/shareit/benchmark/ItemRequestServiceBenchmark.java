@@ -0,0 +1,37 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Свои запросы пользователя и лента чужих запросов на первой и последней странице.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemRequestServiceBenchmark {
+
+    private static final int PAGE_SIZE = 10;
+
+    @Benchmark
+    public List<ItemRequestDto> getRequests(ServerState state) {
+        return state.itemRequestService.getRequests(state.data.getUser());
+    }
+
+    @Benchmark
+    public List<ItemRequestDto> getAllRequestsFirstPage(ServerState state) {
+        return state.itemRequestService.getAllRequests(0, PAGE_SIZE, state.data.getUser());
+    }
+
+    @Benchmark
+    public List<ItemRequestDto> getAllRequestsLastPage(ServerState state) {
+        int feed = (state.users - 1) * state.requestsPerUser;
+        int from = Math.max(feed - 1, 0) / PAGE_SIZE * PAGE_SIZE;
+        return state.itemRequestService.getAllRequests(from, PAGE_SIZE, state.data.getUser());
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.item.dto.ItemCursor;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemOutputDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Просмотр вещей владельцем и арендатором, поиск. Сравнение движков поиска - {@code -p searchEngine=like,trigram},
+ * кэша второго уровня - {@code -p secondLevelCache=false,true}. Триграммные индексы есть только в PostgreSQL:
+ * {@code -jvmArgs "-Dspring.sql.init.platform=postgresql -Dspring.datasource.url=jdbc:postgresql://localhost/shareit
+ * -Dspring.datasource.driverClassName=org.postgresql.Driver"} и учетные данные spring.datasource.username/password,
+ * на H2 видна только цена ранжирования.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemServiceBenchmark {
+
+    private static final int PAGE_SIZE = 10;
+
+    @Benchmark
+    public List<ItemOutputDto> getAllByUserId(ServerState state) {
+        return state.itemService.getAllByUserId(state.data.getUser(), 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<ItemOutputDto> getAllByUserIdAfter(ServerState state) {
+        return state.itemService.getAllByUserIdAfter(state.data.getUser(), new ItemCursor(0L).encode(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public ItemDto getByIdAsOwner(ServerState state) {
+        return state.itemService.getById(state.data.getItem(), state.data.getUser());
+    }
+
+    @Benchmark
+    public ItemDto getByIdAsBooker(ServerState state) {
+        return state.itemService.getById(state.data.getItem(), state.data.getUserIds().get(1));
+    }
+
+    @Benchmark
+    public List<ItemDto> search(ServerState state) {
+        return state.itemService.search("дрель", 0, 20);
+    }
+
+    /**
+     * Редкий текст: названия дрелей пользователей 77 и 770-779, при 1000 пользователей - десятая доля процента вещей.
+     */
+    @Benchmark
+    public List<ItemDto> searchRare(ServerState state) {
+        return state.itemService.search("дрель 77", 0, 20);
+    }
+}
@@ -0,0 +1,121 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingOutputDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingMapper;
+import ru.practicum.shareit.booking.repository.BookingListRepository.Side;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemCommentDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.CommentMapper;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.ItemRequestMapper;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Чтение страницы списка через JPQL-проекцию в DTO против загрузки сущностей с join fetch и маппера.
+ * Обе ветки выполняются в одинаковой read-only транзакции. Выделение памяти на операцию -
+ * {@code -prof gc} (gc.alloc.rate.norm), например {@code java -jar benchmarks.jar ReadPath -prof gc}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadPathBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @State(Scope.Benchmark)
+    public static class Repositories {
+
+        TransactionTemplate readOnly;
+        EntityManager entityManager;
+        BookingRepository bookingRepository;
+        ItemRequestRepository itemRequestRepository;
+        CommentRepository commentRepository;
+        List<Long> itemIds;
+
+        @Setup(Level.Trial)
+        public void find(ServerState state) {
+            readOnly = new TransactionTemplate(state.context.getBean(PlatformTransactionManager.class));
+            readOnly.setReadOnly(true);
+            entityManager = state.context.getBean(EntityManager.class);
+            bookingRepository = state.context.getBean(BookingRepository.class);
+            itemRequestRepository = state.context.getBean(ItemRequestRepository.class);
+            commentRepository = state.context.getBean(CommentRepository.class);
+            itemIds = state.data.getItemIds().subList(0, Math.min(state.itemsPerOwner, PAGE_SIZE));
+        }
+    }
+
+    @Benchmark
+    public List<BookingOutputDto> bookingsProjection(ServerState state, Repositories repositories) {
+        return repositories.readOnly.execute(status -> repositories.bookingRepository
+                .findPage(Side.BOOKER, state.data.getUser(), ru.practicum.shareit.booking.model.State.ALL,
+                        LocalDateTime.now(), null, PageRequest.of(0, PAGE_SIZE)));
+    }
+
+    @Benchmark
+    public List<BookingOutputDto> bookingsEntities(ServerState state, Repositories repositories) {
+        return repositories.readOnly.execute(status -> repositories.entityManager
+                .createQuery("select b from Booking b join fetch b.item join fetch b.booker " +
+                        "where b.booker.id = ?1 order by b.start desc, b.id desc", Booking.class)
+                .setParameter(1, state.data.getUser())
+                .setMaxResults(PAGE_SIZE)
+                .getResultList().stream()
+                .map(BookingMapper::toBookingOutputDto)
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<ItemRequestDto> requestsProjection(ServerState state, Repositories repositories) {
+        return repositories.readOnly.execute(status -> repositories.itemRequestRepository
+                .findAllByRequestorIdIsNot(state.data.getUser(),
+                        PageRequest.of(0, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "created", "id"))));
+    }
+
+    @Benchmark
+    public List<ItemRequestDto> requestsEntities(ServerState state, Repositories repositories) {
+        return repositories.readOnly.execute(status -> repositories.entityManager
+                .createQuery("select r from ItemRequest r where r.requestor.id <> ?1 " +
+                        "order by r.created desc, r.id desc", ItemRequest.class)
+                .setParameter(1, state.data.getUser())
+                .setMaxResults(PAGE_SIZE)
+                .getResultList().stream()
+                .map(ItemRequestMapper::toItemRequestDto)
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<CommentDto> commentsProjection(Repositories repositories) {
+        return repositories.readOnly.execute(status -> repositories.commentRepository
+                .findCommentsByItemIds(repositories.itemIds).stream()
+                .map(ItemCommentDto::getComment)
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<CommentDto> commentsEntities(Repositories repositories) {
+        return repositories.readOnly.execute(status -> repositories.entityManager
+                .createQuery("select c from Comment c join fetch c.author join fetch c.item " +
+                        "where c.item.id in ?1", Comment.class)
+                .setParameter(1, repositories.itemIds)
+                .getResultList().stream()
+                .map(CommentMapper::toCommentDto)
+                .collect(Collectors.toList()));
+    }
+}
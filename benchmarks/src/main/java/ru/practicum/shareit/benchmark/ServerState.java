@@ -0,0 +1,103 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.service.ItemRequestService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Контекст сервера на встроенной H2, заполненный данными заданного объема.
+ * Объем и режимы меняются параметрами JMH, например {@code -p bookingsPerItem=1000 -p searchEngine=like,trigram}.
+ */
+@State(Scope.Benchmark)
+public class ServerState {
+
+    @Param({"100"})
+    public int users;
+
+    @Param({"10"})
+    public int itemsPerOwner;
+
+    @Param({"50"})
+    public int bookingsPerItem;
+
+    @Param({"5"})
+    public int requestsPerUser;
+
+    /**
+     * trigram или like, см. shareit.search.engine.
+     */
+    @Param({"like"})
+    public String searchEngine;
+
+    /**
+     * true - профиль l2cache с кэшем второго уровня Hibernate.
+     */
+    @Param({"false"})
+    public boolean secondLevelCache;
+
+    /**
+     * false - вторичные индексы из schema.sql удаляются после заполнения.
+     */
+    @Param({"true"})
+    public boolean indexes;
+
+    /**
+     * hibernate.jdbc.batch_size, 1 - без пакетной вставки.
+     */
+    @Param({"50"})
+    public int jdbcBatchSize;
+
+    public ConfigurableApplicationContext context;
+    public BookingService bookingService;
+    public ItemService itemService;
+    public ItemRequestService itemRequestService;
+    public DataSet data;
+
+    @Setup(Level.Trial)
+    public void start() {
+        List<String> profiles = new ArrayList<>(List.of("test"));
+        if (secondLevelCache) {
+            profiles.add("l2cache");
+        }
+
+        context = new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE)
+                .profiles(profiles.toArray(String[]::new))
+                .run("--shareit.search.engine=" + searchEngine,
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize,
+                        "--logging.level.root=WARN",
+                        "--logging.level.ru.practicum=WARN",
+                        "--logging.level.org.springframework.orm.jpa=WARN",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+                        "--logging.level.org.springframework.transaction=WARN",
+                        "--logging.level.org.springframework.transaction.interceptor=WARN");
+
+        bookingService = context.getBean(BookingService.class);
+        itemService = context.getBean(ItemService.class);
+        itemRequestService = context.getBean(ItemRequestService.class);
+
+        DataSeeder seeder = new DataSeeder(context, users, itemsPerOwner, bookingsPerItem, requestsPerUser);
+        data = seeder.seed();
+        if (!indexes) {
+            seeder.dropIndexes();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+}
@@ -0,0 +1,121 @@
+package ru.practicum.shareit.benchmark.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Шлюз или сервер в отдельной JVM из исполняемого jar. Процессорное время берется у ОС, остальное - из метрик
+ * actuator.
+ */
+final class AppProcess implements AutoCloseable {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+    private static final Duration ACTUATOR_TIMEOUT = Duration.ofSeconds(10);
+
+    private final Process process;
+    private final String url;
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private AppProcess(Process process, String url) {
+        this.process = process;
+        this.url = url;
+    }
+
+    static AppProcess start(Path jar, String maxHeap, List<String> args, Path log)
+            throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>(List.of(
+                ProcessHandle.current().info().command().orElse("java"),
+                "-Xmx" + maxHeap, "-jar", jar.toString(), "--server.port=" + port));
+        command.addAll(args);
+
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        // процесс не переживает прерванный замер
+        Runtime.getRuntime().addShutdownHook(new Thread(process::destroyForcibly));
+        AppProcess app = new AppProcess(process, "http://localhost:" + port);
+        app.awaitHealth(log);
+        return app;
+    }
+
+    String url() {
+        return url;
+    }
+
+    Duration cpu() {
+        return process.info().totalCpuDuration().orElse(Duration.ZERO);
+    }
+
+    /**
+     * Значения метрики actuator по статистикам, например COUNT и TOTAL_TIME таймера. Пусто, если метрики нет
+     * или приложение не ответило.
+     */
+    Map<String, Double> metric(String name) throws InterruptedException {
+        Map<String, Double> values = new HashMap<>();
+        try {
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(
+                    URI.create(url + "/actuator/metrics/" + name)).timeout(ACTUATOR_TIMEOUT).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 200) {
+                for (JsonNode measurement : mapper.readTree(response.body()).path("measurements")) {
+                    values.put(measurement.path("statistic").asText(), measurement.path("value").asDouble());
+                }
+            }
+        } catch (IOException e) {
+            values.clear();
+        }
+        return values;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    private void awaitHealth(Path log) throws InterruptedException {
+        HttpRequest health = HttpRequest.newBuilder(URI.create(url + "/actuator/health"))
+                .timeout(ACTUATOR_TIMEOUT)
+                .build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Процесс завершился при запуске, см. " + log);
+            }
+            try {
+                if (http.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // еще не слушает порт
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Процесс не запустился за " + STARTUP_TIMEOUT + ", см. " + log);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ru.practicum.shareit.benchmark.load;
+
+import ru.practicum.shareit.VirtualThreadsConfig;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Замкнутый цикл: каждый клиент - виртуальный поток, который отправляет следующий запрос сразу после ответа.
+ * В результат попадают запросы, завершившиеся в окне замера после прогрева.
+ */
+final class ClosedLoopLoad {
+
+    private final HttpClient http;
+    private final HttpRequest request;
+    private final int clients;
+
+    ClosedLoopLoad(HttpClient http, HttpRequest request, int clients) {
+        this.http = http;
+        this.request = request;
+        this.clients = clients;
+    }
+
+    /**
+     * @param window вызывается в начале и в конце окна замера, например для снимка процессорного времени
+     */
+    LoadResult run(Duration warmup, Duration duration, Runnable window) throws InterruptedException {
+        long start = System.nanoTime() + warmup.toNanos();
+        long end = start + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        long[][] latencies = new long[clients][];
+
+        ExecutorService executor = VirtualThreadsConfig.newVirtualThreadPerTaskExecutor();
+        try {
+            for (int i = 0; i < clients; i++) {
+                int client = i;
+                executor.execute(() -> {
+                    LatencyLog log = new LatencyLog();
+                    while (System.nanoTime() < end) {
+                        long sent = System.nanoTime();
+                        boolean ok = send();
+                        long received = System.nanoTime();
+                        if (received >= start && received < end) {
+                            if (ok) {
+                                log.add(received - sent);
+                            } else {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    }
+                    latencies[client] = log.toArray();
+                });
+            }
+            Thread.sleep(Math.max(0, (start - System.nanoTime()) / 1_000_000));
+            window.run();
+            Thread.sleep(Math.max(0, (end - System.nanoTime()) / 1_000_000));
+            window.run();
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.HOURS);
+        }
+
+        // awaitTermination() дождался всех клиентов, их массивы видны
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        return new LoadResult(clients, all, errors.get(), duration);
+    }
+
+    private boolean send() {
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static final class LatencyLog {
+
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
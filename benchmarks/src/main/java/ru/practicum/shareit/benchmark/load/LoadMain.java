@@ -0,0 +1,255 @@
+package ru.practicum.shareit.benchmark.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalDouble;
+
+import org.springframework.boot.convert.DurationStyle;
+import ru.practicum.shareit.VirtualThreadsConfig;
+
+/**
+ * Нагрузочные замеры шлюза и сервера, запущенных отдельными процессами из исполняемых jar
+ * ({@code mvn -P benchmarks package}). Клиенты запрашивают страницу бронирований по замкнутому циклу,
+ * аргументы после {@code --} передаются приложению. Например:
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar ru.practicum.shareit.benchmark.load.LoadMain gateway \
+ *     --clients=200 --pageSize=10 --latency=50ms -- --shareit-server.client=reactive
+ * java -cp benchmarks/target/benchmarks.jar ru.practicum.shareit.benchmark.load.LoadMain server \
+ *     --clients=16 --pageSize=1000 -- --spring.jpa.open-in-view=true
+ * </pre>
+ * gateway - шлюз перед заглушкой сервера ({@link StubServer}) с задержкой latency; server - сервер на H2
+ * (профиль test), заполненный через API: bookings бронирований одного пользователя на items вещах.
+ * Общие параметры: jar, clients, warmup, duration, timeout, xmx, log. Ответ, не полученный за timeout,
+ * считается ошибкой.
+ */
+public class LoadMain {
+
+    private static final String GATEWAY_JAR = "gateway/target/shareit-gateway-0.0.1-SNAPSHOT-exec.jar";
+    private static final String SERVER_JAR = "server/target/shareit-server-0.0.1-SNAPSHOT-exec.jar";
+
+    private static final List<String> GATEWAY_LOGGING = List.of(
+            "--logging.level.root=WARN",
+            "--logging.level.org.springframework.web.client.RestTemplate=WARN");
+    private static final List<String> SERVER_LOGGING = List.of(
+            "--logging.level.root=WARN",
+            "--logging.level.org.springframework.orm.jpa=WARN",
+            "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+            "--logging.level.org.springframework.transaction=WARN",
+            "--logging.level.org.springframework.transaction.interceptor=WARN");
+
+    /**
+     * Сколько запрос ждет соединение из пула Hikari и сколько держит его.
+     */
+    private static final Map<String, String> SERVER_TIMERS = Map.of(
+            "hikaricp.connections.acquire", "acquire",
+            "hikaricp.connections.usage", "connectionHeld");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || !List.of("gateway", "server").contains(args[0])) {
+            System.err.println("Использование: LoadMain gateway|server [--параметр=значение...] [-- аргументы приложения]");
+            System.exit(1);
+        }
+        Options options = Options.parse(args);
+        if (args[0].equals("gateway")) {
+            gateway(options);
+        } else {
+            server(options);
+        }
+    }
+
+    private static void gateway(Options options) throws Exception {
+        int pageSize = options.integer("pageSize", 1000);
+        List<String> args = new ArrayList<>(GATEWAY_LOGGING);
+        try (StubServer stub = StubServer.start(pageSize, options.duration("latency", Duration.ZERO))) {
+            args.add("--shareit-server.url=" + stub.url());
+            args.addAll(options.appArgs);
+            try (AppProcess gateway = AppProcess.start(Path.of(options.get("jar", GATEWAY_JAR)),
+                    options.get("xmx", "512m"), args, Path.of(options.get("log", "load-gateway.log")))) {
+                measure(gateway, bookingsPage(gateway, 1, pageSize, options), options, Map.of());
+            }
+        }
+    }
+
+    private static void server(Options options) throws Exception {
+        List<String> args = new ArrayList<>(List.of("--spring.profiles.active=test"));
+        args.addAll(SERVER_LOGGING);
+        args.addAll(options.appArgs);
+        try (AppProcess server = AppProcess.start(Path.of(options.get("jar", SERVER_JAR)),
+                options.get("xmx", "512m"), args, Path.of(options.get("log", "load-server.log")))) {
+            long booker = seed(server, options.integer("items", 50), options.integer("bookings", 1000));
+            measure(server, bookingsPage(server, booker, options.integer("pageSize", 1000), options), options,
+                    SERVER_TIMERS);
+        }
+    }
+
+    private static void measure(AppProcess app, HttpRequest request, Options options, Map<String, String> timers)
+            throws Exception {
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(VirtualThreadsConfig.newVirtualThreadPerTaskExecutor())
+                .build();
+        Usage usage = new Usage(app, timers);
+        LoadResult result = new ClosedLoopLoad(http, request, options.integer("clients", 8))
+                .run(options.duration("warmup", Duration.ofSeconds(15)),
+                        options.duration("duration", Duration.ofSeconds(30)), usage::snapshot);
+        System.out.println(result + usage.perRequest(result.requests()));
+    }
+
+    private static HttpRequest bookingsPage(AppProcess app, long userId, int pageSize, Options options) {
+        return HttpRequest.newBuilder(URI.create(app.url() + "/bookings?state=ALL&from=0&size=" + pageSize))
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .timeout(options.duration("timeout", Duration.ofMinutes(1)))
+                .build();
+    }
+
+    /**
+     * Владелец с items вещами и арендатор с bookings бронированиями их на непересекающиеся часы.
+     *
+     * @return id арендатора
+     */
+    private static long seed(AppProcess server, int items, int bookings) throws IOException, InterruptedException {
+        HttpClient http = HttpClient.newHttpClient();
+        long owner = post(http, server.url() + "/users", null,
+                Map.of("name", "Владелец", "email", "owner@load.test"));
+        long booker = post(http, server.url() + "/users", null,
+                Map.of("name", "Арендатор", "email", "booker@load.test"));
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            itemIds.add(post(http, server.url() + "/items", owner,
+                    Map.of("name", "Вещь " + i, "description", "Описание вещи " + i, "available", true)));
+        }
+        LocalDateTime first = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        for (int i = 0; i < bookings; i++) {
+            LocalDateTime start = first.plusHours(i);
+            post(http, server.url() + "/bookings", booker, Map.of("itemId", itemIds.get(i % items),
+                    "start", start.toString(), "end", start.plusMinutes(30).toString()));
+        }
+        return booker;
+    }
+
+    private static long post(HttpClient http, String url, Long userId, Map<String, Object> body)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body)));
+        if (userId != null) {
+            request.header("X-Sharer-User-Id", String.valueOf(userId));
+        }
+        HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(url + " ответил " + response.statusCode() + ": " + response.body());
+        }
+        return MAPPER.readTree(response.body()).path("id").asLong();
+    }
+
+    /**
+     * Процессорное время, выделенная память и средние значения таймеров приложения за окно замера.
+     * Выделенная память - из метрики jvm.gc.memory.allocated, которая растет при каждой сборке молодого поколения.
+     */
+    private static final class Usage {
+
+        private static final String ALLOCATED = "jvm.gc.memory.allocated";
+
+        private final AppProcess app;
+        private final Map<String, String> timers;
+        private final List<Duration> cpu = new ArrayList<>();
+        private final List<Map<String, Map<String, Double>>> metrics = new ArrayList<>();
+
+        /**
+         * @param timers подпись в выводе по имени метрики-таймера
+         */
+        Usage(AppProcess app, Map<String, String> timers) {
+            this.app = app;
+            this.timers = timers;
+        }
+
+        void snapshot() {
+            cpu.add(app.cpu());
+            Map<String, Map<String, Double>> values = new HashMap<>();
+            try {
+                values.put(ALLOCATED, app.metric(ALLOCATED));
+                for (String timer : timers.keySet()) {
+                    values.put(timer, app.metric(timer));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            metrics.add(values);
+        }
+
+        String perRequest(long requests) {
+            if (requests == 0) {
+                return "";
+            }
+            StringBuilder result = new StringBuilder(String.format(Locale.ROOT, " cpu=%.2f ms/req",
+                    cpu.get(1).minus(cpu.get(0)).toNanos() / 1e6 / requests));
+            delta(ALLOCATED, "COUNT").ifPresent(allocated -> result.append(String.format(Locale.ROOT,
+                    " alloc=%.0f KB/req", allocated / 1024 / requests)));
+            timers.forEach((timer, label) -> {
+                OptionalDouble count = delta(timer, "COUNT");
+                OptionalDouble total = delta(timer, "TOTAL_TIME");
+                if (count.isPresent() && total.isPresent() && count.getAsDouble() > 0) {
+                    result.append(String.format(Locale.ROOT, " %s=%.1f ms", label,
+                            total.getAsDouble() * 1000 / count.getAsDouble()));
+                }
+            });
+            return result.toString();
+        }
+
+        private OptionalDouble delta(String metric, String statistic) {
+            Double start = metrics.get(0).getOrDefault(metric, Map.of()).get(statistic);
+            Double end = metrics.get(1).getOrDefault(metric, Map.of()).get(statistic);
+            return start != null && end != null ? OptionalDouble.of(end - start) : OptionalDouble.empty();
+        }
+    }
+
+    private static final class Options {
+
+        private final Map<String, String> values = new HashMap<>();
+        private final List<String> appArgs = new ArrayList<>();
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals("--")) {
+                    options.appArgs.addAll(List.of(args).subList(i + 1, args.length));
+                    break;
+                }
+                String[] option = args[i].replaceFirst("^--", "").split("=", 2);
+                if (option.length != 2) {
+                    throw new IllegalArgumentException("Ожидается --параметр=значение: " + args[i]);
+                }
+                options.values.put(option[0], option[1]);
+            }
+            return options;
+        }
+
+        String get(String name, String defaultValue) {
+            return values.getOrDefault(name, defaultValue);
+        }
+
+        int integer(String name, int defaultValue) {
+            return values.containsKey(name) ? Integer.parseInt(values.get(name)) : defaultValue;
+        }
+
+        Duration duration(String name, Duration defaultValue) {
+            return values.containsKey(name) ? DurationStyle.detectAndParse(values.get(name)) : defaultValue;
+        }
+    }
+}
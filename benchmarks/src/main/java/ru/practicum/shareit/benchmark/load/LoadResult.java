@@ -0,0 +1,45 @@
+package ru.practicum.shareit.benchmark.load;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Итог замера: пропускная способность и перцентили времени ответа успешных запросов.
+ */
+final class LoadResult {
+
+    private final int clients;
+    private final long[] sortedLatencies;
+    private final long errors;
+    private final Duration duration;
+
+    LoadResult(int clients, long[] sortedLatencies, long errors, Duration duration) {
+        this.clients = clients;
+        this.sortedLatencies = sortedLatencies;
+        this.errors = errors;
+        this.duration = duration;
+    }
+
+    long requests() {
+        return sortedLatencies.length;
+    }
+
+    double throughput() {
+        return requests() * 1e9 / duration.toNanos();
+    }
+
+    double percentileMillis(double percentile) {
+        if (sortedLatencies.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, index)] / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "clients=%d requests=%d errors=%d throughput=%.1f req/s p50=%.1f ms "
+                        + "p99=%.1f ms", clients, requests(), errors, throughput(), percentileMillis(50),
+                percentileMillis(99));
+    }
+}
@@ -0,0 +1,85 @@
+package ru.practicum.shareit.benchmark.load;
+
+import com.sun.net.httpserver.HttpServer;
+import ru.practicum.shareit.VirtualThreadsConfig;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Заглушка сервера для замеров шлюза: на любой запрос отвечает одной и той же страницей бронирований
+ * в формате BookingOutputDto, по желанию с задержкой. Запросы обрабатываются на виртуальных потоках,
+ * поэтому задержка не ограничивает число одновременных ответов.
+ */
+final class StubServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private StubServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    static StubServer start(int pageSize, Duration latency) throws IOException {
+        // по умолчанию HttpServer держит 200 простаивающих соединений и закрывает лишние, а шлюз с виртуальными
+        // потоками открывает их по числу клиентов и получает закрытые соединения из своего пула
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "100000");
+        byte[] page = bookingsPage(pageSize);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096);
+        ExecutorService executor = VirtualThreadsConfig.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            try {
+                exchange.getRequestBody().readAllBytes();
+                if (!latency.isZero()) {
+                    Thread.sleep(latency.toMillis());
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, page.length);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(page);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        return new StubServer(server, executor);
+    }
+
+    String url() {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    static byte[] bookingsPage(int size) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 1; i <= size; i++) {
+            if (i > 1) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i)
+                    .append(",\"start\":\"2030-01-01T10:00:00\",\"end\":\"2030-01-02T10:00:00\"")
+                    .append(",\"item\":{\"id\":").append(i).append(",\"name\":\"Вещь ").append(i)
+                    .append("\",\"description\":\"Описание вещи ").append(i)
+                    .append("\",\"available\":true,\"requestId\":null}")
+                    .append(",\"booker\":{\"id\":1,\"name\":\"Арендатор\",\"email\":\"booker@mail.ru\"}")
+                    .append(",\"status\":\"APPROVED\"}");
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,106 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jdk.jfr.EventSettings;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Следит за событиями JFR jdk.VirtualThreadPinned: виртуальный поток, заблокированный внутри synchronized
+ * или нативного вызова, удерживает поток-носитель. Каждое такое событие логируется со стеком
+ * и учитывается в метрике jvm.threads.virtual.pinned с тегом path - jdbc, http или other.
+ * RecordingStream есть только с JDK 14 и создается через рефлексию, как и исполнитель в VirtualThreadsConfig.
+ */
+@Slf4j
+public class PinnedThreadMonitor implements MeterBinder, AutoCloseable {
+
+    static final String EVENT = "jdk.VirtualThreadPinned";
+
+    private static final Map<String, List<String>> PATHS = Map.of(
+            "jdbc", List.of("java.sql.", "com.zaxxer.hikari.", "org.postgresql.", "org.h2.", "org.hibernate."),
+            "http", List.of("org.apache.http.", "org.springframework.web.client.", "sun.net.www."));
+    private static final String OTHER = "other";
+    private static final int LOGGED_FRAMES = 10;
+
+    private final Map<String, AtomicLong> pinned = Map.of(
+            "jdbc", new AtomicLong(),
+            "http", new AtomicLong(),
+            OTHER, new AtomicLong());
+    private final AutoCloseable stream;
+
+    public PinnedThreadMonitor(Duration threshold) {
+        stream = startStream(threshold, this::onPinned);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        pinned.forEach((path, count) -> FunctionCounter.builder("jvm.threads.virtual.pinned", count, AtomicLong::get)
+                .description("Блокировки потока-носителя виртуальным потоком")
+                .tag("path", path)
+                .register(registry));
+    }
+
+    @Override
+    public void close() {
+        try {
+            stream.close();
+        } catch (Exception e) {
+            log.warn("Не удалось закрыть поток событий JFR", e);
+        }
+    }
+
+    long pinnedCount(String path) {
+        return pinned.get(path).get();
+    }
+
+    void onPinned(RecordedEvent event) {
+        List<String> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames().stream()
+                .map(PinnedThreadMonitor::describe)
+                .collect(Collectors.toList());
+        String path = path(frames);
+        pinned.get(path).incrementAndGet();
+        log.warn("Виртуальный поток заблокировал носитель на {} мс, путь - {}:\n\t{}", event.getDuration().toMillis(),
+                path, frames.stream().limit(LOGGED_FRAMES).collect(Collectors.joining("\n\t")));
+    }
+
+    static String path(List<String> frames) {
+        for (String frame : frames) {
+            for (Map.Entry<String, List<String>> entry : PATHS.entrySet()) {
+                if (entry.getValue().stream().anyMatch(frame::startsWith)) {
+                    return entry.getKey();
+                }
+            }
+        }
+        return OTHER;
+    }
+
+    private static AutoCloseable startStream(Duration threshold, Consumer<RecordedEvent> onPinned) {
+        try {
+            Class<?> type = Class.forName("jdk.jfr.consumer.RecordingStream");
+            Object stream = type.getConstructor().newInstance();
+            ((EventSettings) type.getMethod("enable", String.class).invoke(stream, EVENT))
+                    .withThreshold(threshold)
+                    .withStackTrace();
+            type.getMethod("onEvent", String.class, Consumer.class).invoke(stream, EVENT, onPinned);
+            type.getMethod("startAsync").invoke(stream);
+            return (AutoCloseable) stream;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Поток событий JFR недоступен в JDK " + Runtime.version().feature(), e);
+        }
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" +
+                frame.getLineNumber();
+    }
+}
@@ -0,0 +1,121 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.coyote.ProtocolHandler;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class VirtualThreadsConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer(context -> context.getBeanFactory()
+                    .setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withUserConfiguration(VirtualThreadsConfig.class);
+
+    @Test
+    void shouldKeepPlatformThreadsByDefault() {
+        contextRunner.run(context -> assertTrue(context.getBeansOfType(TomcatProtocolHandlerCustomizer.class)
+                .isEmpty()));
+    }
+
+    @Test
+    void shouldFailFastWithoutVirtualThreads() {
+        assumeTrue(Runtime.version().feature() < 21);
+
+        contextRunner
+                .withPropertyValues("shareit.threads.virtual=true")
+                .run(context -> assertTrue(context.getStartupFailure().getMessage().contains("требуется JDK 21+")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRunRequestsOnVirtualThreads() {
+        assumeTrue(Runtime.version().feature() >= 21);
+
+        contextRunner
+                .withPropertyValues("shareit.threads.virtual=true")
+                .run(context -> {
+                    ProtocolHandler protocolHandler = mock(ProtocolHandler.class);
+                    context.getBean(TomcatProtocolHandlerCustomizer.class).customize(protocolHandler);
+
+                    ArgumentCaptor<Executor> executor = ArgumentCaptor.forClass(Executor.class);
+                    verify(protocolHandler).setExecutor(executor.capture());
+                    assertTrue(((ExecutorService) executor.getValue())
+                            .submit(VirtualThreadsConfigTest::isVirtual)
+                            .get());
+                });
+    }
+
+    @Test
+    void shouldClassifyPinnedFramesByPath() {
+        assertEquals("jdbc", PinnedThreadMonitor.path(List.of("java.lang.Object.wait:-1",
+                "org.postgresql.core.v3.QueryExecutorImpl.execute:355")));
+        assertEquals("http", PinnedThreadMonitor.path(List.of("java.lang.Object.wait:-1",
+                "org.apache.http.pool.AbstractConnPool.getPoolEntryBlocking:393",
+                "org.springframework.web.client.RestTemplate.doExecute:776")));
+        assertEquals("http", PinnedThreadMonitor.path(List.of(
+                "sun.net.www.protocol.http.HttpURLConnection.getInputStream:1615")));
+        assertEquals("other", PinnedThreadMonitor.path(List.of(
+                "ru.practicum.shareit.item.service.ItemServiceImpl.create:40")));
+    }
+
+    @Test
+    void shouldExposePinnedCounters() {
+        assumeTrue(Runtime.version().feature() >= 14);
+
+        try (PinnedThreadMonitor monitor = new PinnedThreadMonitor(Duration.ofMillis(20))) {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            monitor.bindTo(registry);
+
+            assertEquals(0, registry.get("jvm.threads.virtual.pinned").tag("path", "jdbc").functionCounter().count());
+            assertEquals(0, monitor.pinnedCount("http"));
+        }
+    }
+
+    @Test
+    void shouldCountVirtualThreadPinnedInsideSynchronized() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21);
+
+        ExecutorService executor = VirtualThreadsConfig.newVirtualThreadPerTaskExecutor();
+        try (PinnedThreadMonitor monitor = new PinnedThreadMonitor(Duration.ofMillis(20))) {
+            Object lock = new Object();
+            executor.submit(() -> {
+                synchronized (lock) {
+                    sleep(100);
+                }
+            }).get();
+
+            for (int i = 0; i < 100 && monitor.pinnedCount("other") == 0; i++) {
+                sleep(100);
+            }
+            assertEquals(1, monitor.pinnedCount("other"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static boolean isVirtual() throws ReflectiveOperationException {
+        return (boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,33 +1,33 @@
 package ru.practicum.shareit.booking;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ServerExchange;
+import ru.practicum.shareit.client.ServerResponseCache;
 
+import java.io.IOException;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
-    @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    private final ObjectMapper objectMapper;
+
+    public BookingClient(ServerExchange serverExchange, ServerResponseCache responseCache, ObjectMapper objectMapper) {
+        super(API_PREFIX, serverExchange, responseCache);
+        this.objectMapper = objectMapper;
     }
 
-    public ResponseEntity<Object> getBookings(long userId, BookingState state, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getBookings(long userId, BookingState state, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
                 "from", from,
@@ -36,19 +36,38 @@ public class BookingClient extends BaseClient {
         return get("?state={state}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> create(long userId, BookingDto requestDto) {
-        return post("", userId, requestDto);
+    public Mono<ResponseEntity<Object>> getBookingsAfter(long userId, BookingState state, String cursor, Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "state", state.name(),
+                "cursor", cursor,
+                "size", size
+        );
+        return get("?state={state}&cursor={cursor}&size={size}", userId, parameters);
+    }
+
+    public Mono<ResponseEntity<StreamingResponseBody>> exportBookings(long userId) {
+        return stream("/export", userId);
+    }
+
+    public Mono<ResponseEntity<StreamingResponseBody>> exportBookingsByUserId(long userId) {
+        return stream("/owner/export", userId);
     }
 
-    public ResponseEntity<Object> approve(long userId, long bookingId, boolean approve) {
-        return patch(String.format("/%d?approved=%s", bookingId, approve), userId);
+    public Mono<ResponseEntity<Object>> create(long userId, BookingDto requestDto) {
+        return evicting(post("", userId, requestDto), "/items/" + requestDto.getItemId());
     }
 
-    public ResponseEntity<Object> getBooking(long userId, long bookingId) {
+    public Mono<ResponseEntity<Object>> approve(long userId, long bookingId, boolean approve) {
+        // подтверждение меняет lastBooking и nextBooking вещи у владельца, вещь берется из ответа сервера
+        return evictingFromResponse(patch(String.format("/%d?approved=%s", bookingId, approve), userId),
+                this::itemPath, "/items/");
+    }
+
+    public Mono<ResponseEntity<Object>> getBooking(long userId, long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> getBookingsByUserId(long userId, BookingState state, int from, int size) {
+    public Mono<ResponseEntity<Object>> getBookingsByUserId(long userId, BookingState state, int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
                 "from", from,
@@ -56,4 +75,25 @@ public class BookingClient extends BaseClient {
         );
         return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
     }
+
+    public Mono<ResponseEntity<Object>> getBookingsByUserIdAfter(long userId, BookingState state, String cursor, int size) {
+        Map<String, Object> parameters = Map.of(
+                "state", state.name(),
+                "cursor", cursor,
+                "size", size
+        );
+        return get("/owner?state={state}&cursor={cursor}&size={size}", userId, parameters);
+    }
+
+    private Optional<String> itemPath(Object booking) {
+        if (!(booking instanceof byte[])) {
+            return Optional.empty();
+        }
+        try {
+            JsonNode itemId = objectMapper.readTree((byte[]) booking).path("item").path("id");
+            return itemId.canConvertToLong() ? Optional.of("/items/" + itemId.asLong()) : Optional.empty();
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
 }
@@ -1,121 +1,169 @@
 package ru.practicum.shareit.client;
 
-import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
-import org.springframework.web.client.HttpStatusCodeException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
 
 public class BaseClient {
-    protected final RestTemplate rest;
+    private final String apiPrefix;
+    private final ServerExchange exchange;
+    private final ServerResponseCache responseCache;
 
-    public BaseClient(RestTemplate rest) {
-        this.rest = rest;
+    public BaseClient(String apiPrefix, ServerExchange exchange, ServerResponseCache responseCache) {
+        this.apiPrefix = apiPrefix;
+        this.exchange = exchange;
+        this.responseCache = responseCache;
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected Mono<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> get(String path, long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
-        return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
+    /**
+     * If-None-Match клиента передается серверу, поэтому ответ 304 и ETag проходят через шлюз без изменений.
+     * Тело ответа шлюз не разбирает, поэтому оно передается клиенту через {@link ServerExchange#passthrough}.
+     */
+    protected Mono<ResponseEntity<Object>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+        return exchange.passthrough(apiPrefix + path, userId, parameters, conditionalHeaders());
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    protected Mono<ResponseEntity<StreamingResponseBody>> stream(String path, long userId) {
+        return exchange.stream(apiPrefix + path, userId);
+    }
+
+    protected Mono<ResponseEntity<Object>> getCached(String path, @Nullable Long userId) {
+        return responseCache.get(apiPrefix + path, userId, () -> exchange.exchange(HttpMethod.GET, apiPrefix + path,
+                userId, null, null, conditionalHeaders()));
+    }
+
+    /**
+     * Сбрасывает кэш ответов по указанным ресурсам, как только сервер ответил на изменяющий запрос.
+     */
+    protected Mono<ResponseEntity<Object>> evicting(Mono<ResponseEntity<Object>> write, String... paths) {
+        return write
+                .doOnSuccess(response -> evict(paths))
+                .doOnError(e -> evict(paths));
+    }
+
+    protected Mono<ResponseEntity<Object>> evictingAll(Mono<ResponseEntity<Object>> write, String pathPrefix) {
+        return write
+                .doOnSuccess(response -> responseCache.evictAll(pathPrefix))
+                .doOnError(e -> responseCache.evictAll(pathPrefix));
+    }
+
+    /**
+     * Сбрасывает кэш по пути, который можно узнать только из ответа сервера. Отказ сервера ничего не изменил;
+     * если ответа нет или путь из него не извлечь, исход неизвестен - сбрасываются все пути с fallbackPrefix.
+     */
+    protected Mono<ResponseEntity<Object>> evictingFromResponse(Mono<ResponseEntity<Object>> write,
+                                                                Function<Object, Optional<String>> pathOf,
+                                                                String fallbackPrefix) {
+        return write
+                .doOnSuccess(response -> {
+                    if (response == null) {
+                        responseCache.evictAll(fallbackPrefix);
+                    } else if (response.getStatusCode().is2xxSuccessful()) {
+                        pathOf.apply(response.getBody()).ifPresentOrElse(responseCache::evict,
+                                () -> responseCache.evictAll(fallbackPrefix));
+                    }
+                })
+                .doOnError(e -> responseCache.evictAll(fallbackPrefix));
+    }
+
+    /**
+     * Сбрасывает ресурс пользователя, ответы для его X-Sharer-User-Id, а также все вещи и запросы:
+     * в них имя автора отзыва, вещи и запросы пользователя видны и другим пользователям.
+     */
+    protected Mono<ResponseEntity<Object>> evictingUser(Mono<ResponseEntity<Object>> write, long userId) {
+        return write
+                .doOnSuccess(response -> evictUser(userId))
+                .doOnError(e -> evictUser(userId));
+    }
+
+    protected <T> Mono<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected Mono<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> delete(String path, long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
-
-        ResponseEntity<Object> shareitServerResponse;
-        try {
-            if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
-            } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
-            }
-        } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
-        }
-        return prepareGatewayResponse(shareitServerResponse);
+    private void evictUser(long userId) {
+        responseCache.evictUser(userId);
+        responseCache.evictAll("/items/");
+        responseCache.evictAll("/requests/");
     }
 
-    private HttpHeaders defaultHeaders(Long userId) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
-        if (userId != null) {
-            headers.set("X-Sharer-User-Id", String.valueOf(userId));
+    private void evict(String... paths) {
+        for (String path : paths) {
+            responseCache.evict(path);
         }
-        return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
-        }
-
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
-
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
+    private static HttpHeaders conditionalHeaders() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            return ServerHeaders.conditional(((ServletRequestAttributes) attributes).getRequest()
+                    .getHeader(HttpHeaders.IF_NONE_MATCH));
         }
+        return HttpHeaders.EMPTY;
+    }
 
-        return responseBuilder.build();
+    private <T> Mono<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        return exchange.exchange(method, apiPrefix + path, userId, parameters, body, HttpHeaders.EMPTY);
     }
 }
@@ -0,0 +1,120 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Запрос выполняется через RestTemplate и занимает поток сервлета на все время обращения к серверу.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit-server.client", havingValue = "blocking", matchIfMissing = true)
+public class BlockingServerExchange implements ServerExchange {
+
+    private final RestTemplate rest;
+
+    @Autowired
+    public BlockingServerExchange(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                                  ClientHttpRequestFactory serverRequestFactory) {
+        this(builder
+                .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl))
+                .requestFactory(() -> serverRequestFactory)
+                .build());
+    }
+
+    BlockingServerExchange(RestTemplate rest) {
+        this.rest = rest;
+    }
+
+    @Override
+    public Mono<ResponseEntity<Object>> exchange(HttpMethod method, String path, @Nullable Long userId,
+                                                 @Nullable Map<String, Object> parameters, @Nullable Object body,
+                                                 HttpHeaders forwardedHeaders) {
+        return Mono.fromCallable(() -> send(method, path, userId, parameters, body, forwardedHeaders));
+    }
+
+    /**
+     * Соединение с сервером остается открытым до копирования тела, см. {@link ServerResponseBody}.
+     */
+    @Override
+    public Mono<ResponseEntity<StreamingResponseBody>> stream(String path, @Nullable Long userId) {
+        return Mono.fromCallable(() -> {
+            ClientHttpRequest request = rest.getRequestFactory()
+                    .createRequest(rest.getUriTemplateHandler().expand(path), HttpMethod.GET);
+            request.getHeaders().addAll(ServerHeaders.streamRequest(userId));
+            ClientHttpResponse response = request.execute();
+
+            return ServerHeaders.streaming(response.getStatusCode(), response.getHeaders(),
+                    ServerResponseBody.of(response));
+        });
+    }
+
+    /**
+     * Ответ без тела, например 304, закрывается сразу.
+     */
+    @Override
+    public Mono<ResponseEntity<Object>> passthrough(String path, @Nullable Long userId,
+                                                    @Nullable Map<String, Object> parameters,
+                                                    HttpHeaders forwardedHeaders) {
+        return Mono.fromCallable(() -> {
+            URI uri = parameters != null
+                    ? rest.getUriTemplateHandler().expand(path, parameters)
+                    : rest.getUriTemplateHandler().expand(path);
+            ClientHttpRequest request = rest.getRequestFactory().createRequest(uri, HttpMethod.GET);
+            request.getHeaders().addAll(ServerHeaders.request(userId, forwardedHeaders));
+            ClientHttpResponse response = request.execute();
+
+            if (!hasBody(response)) {
+                response.close();
+                return ServerHeaders.response(response.getStatusCode(), response.getHeaders(), null);
+            }
+            return ServerHeaders.streamed(response.getStatusCode(), response.getHeaders(),
+                    ServerResponseBody.of(response));
+        });
+    }
+
+    private static boolean hasBody(ClientHttpResponse response) throws IOException {
+        HttpStatus status = response.getStatusCode();
+        return status != HttpStatus.NO_CONTENT && status != HttpStatus.NOT_MODIFIED
+                && response.getHeaders().getContentLength() != 0;
+    }
+
+    private ResponseEntity<Object> send(HttpMethod method, String path, @Nullable Long userId,
+                                        @Nullable Map<String, Object> parameters, @Nullable Object body,
+                                        HttpHeaders forwardedHeaders) {
+        HttpEntity<Object> requestEntity = new HttpEntity<>(body, ServerHeaders.request(userId, forwardedHeaders));
+
+        ResponseEntity<byte[]> shareitServerResponse;
+        try {
+            if (parameters != null) {
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class, parameters);
+            } else {
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class);
+            }
+        } catch (HttpStatusCodeException e) {
+            return ServerHeaders.response(e.getStatusCode(), e.getResponseHeaders(), e.getResponseBodyAsByteArray());
+        }
+        return ServerHeaders.response(shareitServerResponse.getStatusCode(), shareitServerResponse.getHeaders(),
+                shareitServerResponse.getBody());
+    }
+}
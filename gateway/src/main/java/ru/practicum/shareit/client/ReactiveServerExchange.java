@@ -0,0 +1,74 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Запрос выполняется неблокирующим WebClient: поток сервлета освобождается сразу,
+ * а ответ дописывается асинхронно, когда сервер ответит.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit-server.client", havingValue = "reactive")
+public class ReactiveServerExchange implements ServerExchange {
+
+    private final WebClient webClient;
+
+    @Autowired
+    public ReactiveServerExchange(@Value("${shareit-server.url}") String serverUrl, WebClient.Builder builder,
+                                  ClientHttpConnector serverHttpConnector) {
+        this(builder
+                .baseUrl(serverUrl)
+                .clientConnector(serverHttpConnector)
+                .build());
+    }
+
+    ReactiveServerExchange(WebClient webClient) {
+        this.webClient = webClient;
+    }
+
+    @Override
+    public Mono<ResponseEntity<Object>> exchange(HttpMethod method, String path, @Nullable Long userId,
+                                                 @Nullable Map<String, Object> parameters, @Nullable Object body,
+                                                 HttpHeaders forwardedHeaders) {
+        WebClient.RequestBodySpec request = webClient.method(method)
+                .uri(path, parameters != null ? parameters : Map.of())
+                .headers(headers -> headers.addAll(ServerHeaders.request(userId, forwardedHeaders)));
+
+        WebClient.RequestHeadersSpec<?> spec = body != null ? request.bodyValue(body) : request;
+
+        return spec.exchangeToMono(response -> response.toEntity(byte[].class))
+                .map(response -> ServerHeaders.response(response.getStatusCode(), response.getHeaders(),
+                        response.getBody()));
+    }
+
+    /**
+     * Ответ с любым статусом передается как есть, тело читается при копировании, см. {@link ServerResponseBody}.
+     */
+    @Override
+    public Mono<ResponseEntity<StreamingResponseBody>> stream(String path, @Nullable Long userId) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return webClient.get()
+                .uri(path)
+                .headers(headers -> headers.addAll(ServerHeaders.streamRequest(userId)))
+                .retrieve()
+                .onStatus(status -> true, response -> Mono.empty())
+                .toEntityFlux(DataBuffer.class)
+                .map(response -> ServerHeaders.streaming(response.getStatusCode(), response.getHeaders(),
+                        ServerResponseBody.of(response.getBody(), attributes)));
+    }
+}
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Способ отправки запроса на сервер. Реализация выбирается свойством {@code shareit-server.client}:
+ * blocking - RestTemplate в потоке сервлета, reactive - неблокирующий WebClient.
+ */
+public interface ServerExchange {
+
+    default Mono<ResponseEntity<Object>> exchange(HttpMethod method, String path, @Nullable Long userId,
+                                                  @Nullable Map<String, Object> parameters, @Nullable Object body) {
+        return exchange(method, path, userId, parameters, body, HttpHeaders.EMPTY);
+    }
+
+    /**
+     * @param forwardedHeaders заголовки запроса клиента, которые передаются серверу как есть, например If-None-Match
+     */
+    Mono<ResponseEntity<Object>> exchange(HttpMethod method, String path, @Nullable Long userId,
+                                          @Nullable Map<String, Object> parameters, @Nullable Object body,
+                                          HttpHeaders forwardedHeaders);
+
+    /**
+     * GET, ответ которого шлюз не разбирает и не кэширует.
+     */
+    default Mono<ResponseEntity<Object>> passthrough(String path, @Nullable Long userId,
+                                                     @Nullable Map<String, Object> parameters,
+                                                     HttpHeaders forwardedHeaders) {
+        return exchange(HttpMethod.GET, path, userId, parameters, null, forwardedHeaders);
+    }
+
+    /**
+     * GET, тело которого копируется клиенту по мере чтения.
+     */
+    Mono<ResponseEntity<StreamingResponseBody>> stream(String path, @Nullable Long userId);
+}
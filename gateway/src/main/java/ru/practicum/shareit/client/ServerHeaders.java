@@ -0,0 +1,100 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Заголовки запроса к серверу и ответа шлюза, общие для обеих реализаций {@link ServerExchange}.
+ */
+final class ServerHeaders {
+
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection", "keep-alive", "transfer-encoding",
+            "content-length", "te", "trailer", "upgrade", "proxy-authenticate", "proxy-authorization");
+
+    private ServerHeaders() {
+    }
+
+    static HttpHeaders request(@Nullable Long userId, HttpHeaders forwardedHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(forwardedHeaders);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        if (userId != null) {
+            headers.set("X-Sharer-User-Id", String.valueOf(userId));
+        }
+        return headers;
+    }
+
+    /**
+     * Выгрузка приходит в NDJSON, а ошибка, например неизвестный пользователь, - в JSON: без него в Accept
+     * сервер не может записать ErrorResponse и вместо 404 отвечает 500.
+     */
+    static HttpHeaders streamRequest(@Nullable Long userId) {
+        HttpHeaders headers = request(userId, HttpHeaders.EMPTY);
+        headers.setAccept(List.of(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON));
+        return headers;
+    }
+
+    /**
+     * Условные заголовки запроса клиента, которые шлюз передает серверу: сервер по ним отвечает 304 без тела.
+     */
+    static HttpHeaders conditional(@Nullable String ifNoneMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        if (ifNoneMatch != null) {
+            headers.set(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return headers;
+    }
+
+    /**
+     * Тело ответа сервера передается клиенту как есть, без разбора JSON и повторной сериализации.
+     */
+    static ResponseEntity<Object> response(HttpStatus status, @Nullable HttpHeaders serverHeaders,
+                                           @Nullable byte[] body) {
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(status)
+                .headers(passthrough(serverHeaders));
+
+        if (body != null && body.length > 0) {
+            return responseBuilder.body(body);
+        }
+
+        return responseBuilder.build();
+    }
+
+    static ResponseEntity<StreamingResponseBody> streaming(HttpStatus status, HttpHeaders serverHeaders,
+                                                           StreamingResponseBody body) {
+        return ResponseEntity.status(status)
+                .headers(passthrough(serverHeaders))
+                .body(body);
+    }
+
+    /**
+     * Ответ с еще не прочитанным телом сервера в {@code ResponseEntity<Object>}: его пишет клиенту
+     * {@link StreamingResponseBodyConverter}.
+     */
+    static ResponseEntity<Object> streamed(HttpStatus status, HttpHeaders serverHeaders, StreamingResponseBody body) {
+        return ResponseEntity.status(status)
+                .headers(passthrough(serverHeaders))
+                .body(body);
+    }
+
+    private static HttpHeaders passthrough(@Nullable HttpHeaders serverHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        if (serverHeaders != null) {
+            serverHeaders.forEach((name, values) -> {
+                if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    headers.addAll(name, values);
+                }
+            });
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,55 @@
+package ru.practicum.shareit.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки пула HTTP-соединений шлюза к серверу.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server.http")
+public class ServerHttpClientProperties {
+
+    /**
+     * Максимум соединений в пуле.
+     */
+    private int maxTotal = 200;
+
+    /**
+     * Максимум соединений на один маршрут (хост сервера).
+     */
+    private int maxPerRoute = 200;
+
+    /**
+     * Максимум запросов, ожидающих соединения в реактивном режиме.
+     */
+    private int maxPending = 10000;
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    private Duration readTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Сколько ждать свободного соединения из пула, прежде чем вернуть ошибку.
+     */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Простаивающие дольше соединения закрываются фоновым потоком.
+     */
+    private Duration idleTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Время жизни keep-alive соединения, если сервер не прислал свое.
+     */
+    private Duration keepAlive = Duration.ofSeconds(60);
+
+    /**
+     * Соединение, простоявшее дольше, проверяется перед повторным использованием.
+     */
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+}
@@ -0,0 +1,148 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+
+import javax.servlet.ServletRequest;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Еще не прочитанное тело ответа сервера. Соединение из пула занято, пока тело не скопировано клиенту,
+ * поэтому тело запоминается в запросе клиента: если копирование так и не началось - клиент отключился,
+ * истек таймаут асинхронного запроса или обработка завершилась ошибкой, - его закрывает
+ * {@link ServerResponseBodyFilter} по окончании запроса.
+ */
+final class ServerResponseBody implements StreamingResponseBody, Closeable {
+
+    private static final String ATTRIBUTE = ServerResponseBody.class.getName();
+
+    private final Source source;
+    private final AtomicBoolean taken = new AtomicBoolean();
+
+    private ServerResponseBody(Source source) {
+        this.source = source;
+    }
+
+    /**
+     * Тело ответа, закрываемое вместе с текущим запросом клиента, если его так и не начали копировать.
+     */
+    static ServerResponseBody of(ClientHttpResponse response) {
+        return register(new ServerResponseBody(new Source() {
+            @Override
+            public void copyTo(OutputStream out) throws IOException {
+                try (response) {
+                    StreamUtils.copy(response.getBody(), out);
+                }
+            }
+
+            @Override
+            public void close() {
+                response.close();
+            }
+        }), RequestContextHolder.getRequestAttributes());
+    }
+
+    /**
+     * Тело ответа WebClient. Копирование блокирует поток записи, прерывание по таймауту запроса его отменяет.
+     */
+    static ServerResponseBody of(Flux<DataBuffer> body, @Nullable RequestAttributes attributes) {
+        return register(new ServerResponseBody(new Source() {
+            @Override
+            public void copyTo(OutputStream out) throws IOException {
+                CompletableFuture<Void> written = DataBufferUtils.write(body, out)
+                        .doOnNext(DataBufferUtils::release)
+                        .then()
+                        .toFuture();
+                try {
+                    written.get();
+                } catch (InterruptedException e) {
+                    written.cancel(true);
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Копирование ответа сервера прервано");
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new IOException(e.getCause());
+                }
+            }
+
+            @Override
+            public void close() {
+                // отмена подписки закрывает соединение, не дочитывая тело
+                body.subscribe(DataBufferUtils::release).dispose();
+            }
+        }), attributes);
+    }
+
+    private static ServerResponseBody register(ServerResponseBody body, @Nullable RequestAttributes attributes) {
+        if (attributes instanceof ServletRequestAttributes) {
+            ServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+            @SuppressWarnings("unchecked")
+            Queue<ServerResponseBody> opened = (Queue<ServerResponseBody>) request.getAttribute(ATTRIBUTE);
+            if (opened == null) {
+                opened = new ConcurrentLinkedQueue<>();
+                request.setAttribute(ATTRIBUTE, opened);
+            }
+            opened.add(body);
+        }
+        return body;
+    }
+
+    /**
+     * Закрывает тела ответов сервера, открытые для запроса и не скопированные клиенту.
+     */
+    static void closeUnwritten(ServletRequest request) {
+        @SuppressWarnings("unchecked")
+        Queue<ServerResponseBody> opened = (Queue<ServerResponseBody>) request.getAttribute(ATTRIBUTE);
+        if (opened != null) {
+            for (ServerResponseBody body = opened.poll(); body != null; body = opened.poll()) {
+                body.close();
+            }
+        }
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        if (!taken.compareAndSet(false, true)) {
+            throw new IOException("Ответ сервера уже закрыт");
+        }
+        source.copyTo(out);
+    }
+
+    /**
+     * Возвращает соединение в пул, если тело еще не начали копировать; копирование закрывает ответ само.
+     */
+    @Override
+    public void close() {
+        if (taken.compareAndSet(false, true)) {
+            source.close();
+        }
+    }
+
+    /**
+     * Копирование освобождает соединение само, close - если тело не копировалось.
+     */
+    private interface Source {
+
+        void copyTo(OutputStream out) throws IOException;
+
+        void close();
+    }
+}
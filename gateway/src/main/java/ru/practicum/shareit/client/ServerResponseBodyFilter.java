@@ -0,0 +1,64 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Возвращает в пул соединения с сервером, тела ответов которых не были скопированы клиенту.
+ * Синхронный запрос проверяется по выходе из цепочки, асинхронный - по событию контейнера: завершение,
+ * таймаут или ошибка, например разрыв соединения клиентом. Каждая асинхронная обработка, в том числе
+ * запись StreamingResponseBody после повторной диспетчеризации, начинается заново, поэтому слушатель
+ * добавляется после каждого прохода.
+ */
+@Component
+class ServerResponseBodyFilter extends OncePerRequestFilter {
+
+    private static final AsyncListener CLOSE_UNWRITTEN = new AsyncListener() {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            ServerResponseBody.closeUnwritten(event.getAsyncContext().getRequest());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            ServerResponseBody.closeUnwritten(event.getAsyncContext().getRequest());
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            ServerResponseBody.closeUnwritten(event.getAsyncContext().getRequest());
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    };
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (isAsyncStarted(request)) {
+                request.getAsyncContext().addListener(CLOSE_UNWRITTEN);
+            } else {
+                ServerResponseBody.closeUnwritten(request);
+            }
+        }
+    }
+}
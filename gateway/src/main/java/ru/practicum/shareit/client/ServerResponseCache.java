@@ -0,0 +1,123 @@
+package ru.practicum.shareit.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш ответов сервера на чтение отдельных ресурсов (/items/{id}, /users/{id}, /requests/{id}) по пути
+ * и X-Sharer-User-Id. Записи сбрасываются при изменениях через шлюз и истекают по shareit-server.cache.ttl.
+ */
+@Slf4j
+@Component
+public class ServerResponseCache implements MeterBinder {
+
+    private static final String NAME = "gateway.responses";
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final Cache<String, ResponseEntity<Object>> responses;
+    private final AtomicLong generation = new AtomicLong();
+
+    public ServerResponseCache(@Value("${shareit-server.cache.ttl:PT30S}") Duration ttl,
+                               @Value("${shareit-server.cache.max-weight:16MB}") DataSize maxWeight) {
+        responses = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumWeight(maxWeight.toBytes())
+                .weigher(ServerResponseCache::weigh)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, responses, NAME);
+        Gauge.builder("cache.weight", responses, cache -> cache.policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0))
+                        .orElse(0L))
+                .tag("cache", NAME)
+                .description("Примерный объем закэшированных ответов")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Отдает ответ из кэша или загружает его. Успешный ответ сохраняется, только если за время загрузки
+     * не было изменений, иначе в кэш мог бы попасть устаревший ответ.
+     */
+    public Mono<ResponseEntity<Object>> get(String path, @Nullable Long userId,
+                                            Supplier<Mono<ResponseEntity<Object>>> loader) {
+        String key = key(path, userId);
+        ResponseEntity<Object> cached = responses.getIfPresent(key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        long loadedAt = generation.get();
+        return loader.get()
+                .doOnNext(response -> {
+                    if (response.getStatusCode().is2xxSuccessful() && generation.get() == loadedAt) {
+                        responses.put(key, response);
+                    }
+                });
+    }
+
+    public void evict(String path) {
+        generation.incrementAndGet();
+        String prefix = path + "#";
+        responses.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        log.debug("Сброшен кэш ответов для {}", path);
+    }
+
+    public void evictAll(String pathPrefix) {
+        generation.incrementAndGet();
+        responses.asMap().keySet().removeIf(key -> key.startsWith(pathPrefix));
+        log.debug("Сброшен кэш ответов для {}*", pathPrefix);
+    }
+
+    public void evictUser(long userId) {
+        generation.incrementAndGet();
+        String userPath = "/users/" + userId + "#";
+        String userSuffix = "#" + userId;
+        responses.asMap().keySet().removeIf(key -> key.startsWith(userPath) || key.endsWith(userSuffix));
+        log.debug("Сброшен кэш ответов пользователя {}", userId);
+    }
+
+    long size() {
+        responses.cleanUp();
+        return responses.estimatedSize();
+    }
+
+    private static String key(String path, @Nullable Long userId) {
+        return path + "#" + (userId != null ? userId : "");
+    }
+
+    private static int weigh(String key, ResponseEntity<Object> response) {
+        long weight = ENTRY_OVERHEAD + 2L * key.length();
+        if (response.getBody() instanceof byte[]) {
+            weight += ((byte[]) response.getBody()).length;
+        }
+        for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+            weight += 2L * header.getKey().length();
+            for (String value : header.getValue()) {
+                weight += 2L * value.length();
+            }
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+}
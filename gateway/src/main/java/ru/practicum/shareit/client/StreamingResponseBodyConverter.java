@@ -0,0 +1,45 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+
+/**
+ * Пишет тело {@link StreamingResponseBody}, вернувшееся в {@code ResponseEntity<Object>}: обработчик
+ * StreamingResponseBody такой тип ответа не распознает, и тело проходит через конвертеры сообщений.
+ * Тело копируется в потоке запроса, заголовки сервера, включая Content-Type, уже выставлены.
+ */
+@Component
+class StreamingResponseBodyConverter extends AbstractHttpMessageConverter<StreamingResponseBody> {
+
+    StreamingResponseBodyConverter() {
+        super(MediaType.ALL);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return StreamingResponseBody.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected StreamingResponseBody readInternal(Class<? extends StreamingResponseBody> clazz,
+                                                 HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("StreamingResponseBody не читается из запроса", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(StreamingResponseBody body, HttpOutputMessage outputMessage) throws IOException {
+        body.writeTo(outputMessage.getBody());
+    }
+}
@@ -1,13 +1,11 @@
 package ru.practicum.shareit.item;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ServerExchange;
+import ru.practicum.shareit.client.ServerResponseCache;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
@@ -18,17 +16,11 @@ public class ItemClient extends BaseClient {
 
     private static final String API_PREFIX = "/items";
 
-    @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public ItemClient(ServerExchange serverExchange, ServerResponseCache responseCache) {
+        super(API_PREFIX, serverExchange, responseCache);
     }
 
-    public ResponseEntity<Object> getAllByUserId(long userId, int from, int size) {
+    public Mono<ResponseEntity<Object>> getAllByUserId(long userId, int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -36,19 +28,34 @@ public class ItemClient extends BaseClient {
         return get("/?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> createItem(ItemDto itemDto, long userId) {
+    public Mono<ResponseEntity<Object>> getAllByUserIdAfter(long userId, String cursor, int size) {
+        Map<String, Object> parameters = Map.of(
+                "cursor", cursor,
+                "size", size
+        );
+        return get("/?cursor={cursor}&size={size}", userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> createItem(ItemDto itemDto, long userId) {
+        if (itemDto.getRequestId() != null) {
+            return evicting(post("", userId, itemDto), "/requests/" + itemDto.getRequestId());
+        }
         return post("", userId, itemDto);
     }
 
-    public ResponseEntity<Object> updateItem(ItemDto itemDto, long userId, long itemId) {
-        return patch("/" + itemId, userId, itemDto);
+    public Mono<ResponseEntity<Object>> updateItem(ItemDto itemDto, long userId, long itemId) {
+        // вещь выводится в ответах на свой запрос, а id запроса в изменении может не прийти
+        return evictingAll(evicting(patch("/" + itemId, userId, itemDto), API_PREFIX + "/" + itemId), "/requests/");
     }
 
-    public ResponseEntity<Object> getItemById(long itemId, long userId) {
-        return get("/" + itemId, userId);
+    /**
+     * Ответ зависит от пользователя: владельцу приходят последнее и следующее бронирования.
+     */
+    public Mono<ResponseEntity<Object>> getItemById(long itemId, long userId) {
+        return getCached("/" + itemId, userId);
     }
 
-    public ResponseEntity<Object> search(String text, long userId, int from, int size) {
+    public Mono<ResponseEntity<Object>> search(String text, long userId, int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
@@ -57,8 +64,8 @@ public class ItemClient extends BaseClient {
         return get("/search?text={text}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> createComment(long userId, long itemId, CommentDto commentDto) {
-        return post("/" + itemId + "/comment", userId, commentDto);
+    public Mono<ResponseEntity<Object>> createComment(long userId, long itemId, CommentDto commentDto) {
+        return evicting(post("/" + itemId + "/comment", userId, commentDto), API_PREFIX + "/" + itemId);
     }
 
 }
@@ -7,6 +7,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import javax.validation.Valid;
@@ -24,30 +25,35 @@ public class ItemRequestController {
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public ResponseEntity<Object> create(@RequestHeader(name = "X-Sharer-User-Id") @Positive @NotNull Long userId,
-                                 @Valid @RequestBody ItemRequestDto itemRequestDto) {
+    public Mono<ResponseEntity<Object>> create(@RequestHeader(name = "X-Sharer-User-Id") @Positive @NotNull Long userId,
+                                       @Valid @RequestBody ItemRequestDto itemRequestDto) {
         log.info("Запрос создания запроса пользователем id - {}", userId);
         return itemRequestClient.createItemRequest(userId, itemRequestDto);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getRequestsByUserId(@RequestHeader(name = "X-Sharer-User-Id")
-                                                        @Positive @NotNull Long userId) {
+    public Mono<ResponseEntity<Object>> getRequestsByUserId(@RequestHeader(name = "X-Sharer-User-Id")
+                                                              @Positive @NotNull Long userId) {
         log.info("Запрос получения всех запросов пользователем id - {}", userId);
         return itemRequestClient.getRequests(userId);
     }
 
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> getRequestById(@RequestHeader(name = "X-Sharer-User-Id") @Positive @NotNull Long userId,
-                                         @PathVariable Long requestId) {
+    public Mono<ResponseEntity<Object>> getRequestById(@RequestHeader(name = "X-Sharer-User-Id") @Positive @NotNull Long userId,
+                                               @PathVariable Long requestId) {
         log.info("Запрос получения запроса по id - {} пользователем - {}", requestId, userId);
         return itemRequestClient.getRequestById(userId, requestId);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getAllRequests(@RequestHeader(name = "X-Sharer-User-Id") @Positive @NotNull Long userId,
-                                               @RequestParam(defaultValue = "0") @PositiveOrZero @NotNull Integer from,
-                                               @RequestParam(defaultValue = "10") @Positive @NotNull Integer size) {
+    public Mono<ResponseEntity<Object>> getAllRequests(@RequestHeader(name = "X-Sharer-User-Id") @Positive @NotNull Long userId,
+                                                     @RequestParam(defaultValue = "0") @PositiveOrZero @NotNull Integer from,
+                                                     @RequestParam(defaultValue = "10") @Positive @NotNull Integer size,
+                                                     @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            log.info("Запрос запросов после - {} количество - {} пользователем - {}", cursor, size, userId);
+            return itemRequestClient.getAllRequestsAfter(cursor, size, userId);
+        }
         log.info("Запрос всех запросов со страницы - {} количество - {} пользователем - {}", from, size, userId);
         return itemRequestClient.getAllRequests(from, size, userId);
     }
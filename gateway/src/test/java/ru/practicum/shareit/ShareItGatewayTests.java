@@ -0,0 +1,43 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.client.BlockingServerExchange;
+import ru.practicum.shareit.client.ReactiveServerExchange;
+import ru.practicum.shareit.client.ServerExchange;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * Контекст шлюза поднимается при каждом значении shareit-server.client.
+ */
+class ShareItGatewayTests {
+
+    @Nested
+    @SpringBootTest(properties = "shareit-server.client=blocking")
+    class Blocking {
+
+        @Autowired
+        private ServerExchange exchange;
+
+        @Test
+        void contextLoads() {
+            assertInstanceOf(BlockingServerExchange.class, exchange);
+        }
+    }
+
+    @Nested
+    @SpringBootTest(properties = "shareit-server.client=reactive")
+    class Reactive {
+
+        @Autowired
+        private ServerExchange exchange;
+
+        @Test
+        void contextLoads() {
+            assertInstanceOf(ReactiveServerExchange.class, exchange);
+        }
+    }
+}
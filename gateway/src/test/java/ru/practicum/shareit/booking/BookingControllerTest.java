@@ -9,10 +9,15 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,6 +26,7 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(BookingController.class)
@@ -51,13 +57,17 @@ class BookingControllerTest {
         String booking = mapper.writeValueAsString(bookingDto);
 
         when(bookingClient.create(anyLong(), any(BookingDto.class)))
-                .thenReturn(new ResponseEntity<>(booking, HttpStatus.CREATED));
+                .thenReturn(Mono.just(new ResponseEntity<>(booking, HttpStatus.CREATED)));
 
-        String content = mvc.perform(post("/bookings")
+        MvcResult result = mvc.perform(post("/bookings")
                         .content(booking)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String content = mvc.perform(asyncDispatch(result))
                 .andExpect(status().isCreated())
                 .andReturn()
                 .getResponse()
@@ -102,4 +112,71 @@ class BookingControllerTest {
         verify(bookingClient).getBookingsByUserId(1, BookingState.ALL, 1, 1);
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldPassCursorWhenGetBookingsAfterCursor() throws Exception {
+        mvc.perform(get("/bookings?state={state}&cursor={cursor}&size={size}", BookingState.ALL, "abc", 5)
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk());
+
+        verify(bookingClient).getBookingsAfter(1, BookingState.ALL, "abc", 5);
+    }
+
+    @Test
+    void shouldPassCursorWhenGetOwnerBookingsAfterCursor() throws Exception {
+        mvc.perform(get("/bookings/owner?state={state}&cursor={cursor}&size={size}", BookingState.ALL, "abc", 5)
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk());
+
+        verify(bookingClient).getBookingsByUserIdAfter(1, BookingState.ALL, "abc", 5);
+    }
+
+    @Test
+    void shouldStreamExportedBookings() throws Exception {
+        byte[] bookings = "{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8);
+        when(bookingClient.exportBookingsByUserId(1))
+                .thenReturn(Mono.just(ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .body(out -> out.write(bookings))));
+
+        MvcResult result = mvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult streaming = mvc.perform(asyncDispatch(result))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] content = mvc.perform(asyncDispatch(streaming))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        assertArrayEquals(bookings, content);
+    }
+
+    @Test
+    void shouldWriteStreamedServerPageWithServerHeaders() throws Exception {
+        byte[] bookings = "[{\"id\":1},{\"id\":2}]".getBytes(StandardCharsets.UTF_8);
+        StreamingResponseBody body = out -> out.write(bookings);
+        when(bookingClient.getBookings(1, BookingState.ALL, 0, 10))
+                .thenReturn(Mono.just(ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Next-Cursor", "abc")
+                        .body(body)));
+
+        MvcResult result = mvc.perform(get("/bookings?state={state}&from={from}&size={size}", BookingState.ALL, 0, 10)
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MockHttpServletResponse response = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        assertArrayEquals(bookings, response.getContentAsByteArray());
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, response.getContentType());
+        assertEquals("abc", response.getHeader("X-Next-Cursor"));
+    }
+}
@@ -0,0 +1,118 @@
+package ru.practicum.shareit.booking;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Ошибка сервера при выгрузке доходит до клиента через шлюз со своим статусом и телом. Заглушка отвечает
+ * как сервер: JSON с ошибкой, только если он есть в Accept, иначе 500 без тела.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class BookingExportProxyTest {
+
+    private static final String NOT_FOUND = "{\"error\":\"error\",\"description\":\"Пользователь по id - 99 не найден\"}";
+
+    private static HttpServer server;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/bookings", BookingExportProxyTest::unknownUser);
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    @DynamicPropertySource
+    static void serverUrl(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", () -> "http://localhost:" + server.getAddress().getPort());
+    }
+
+    @Nested
+    @TestPropertySource(properties = "shareit-server.client=blocking")
+    class Blocking {
+
+        @Autowired
+        private MockMvc mvc;
+
+        @ParameterizedTest
+        @ValueSource(strings = {"/bookings/export", "/bookings/owner/export"})
+        void shouldProxyNotFound(String path) throws Exception {
+            expectNotFound(mvc, path);
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "shareit-server.client=reactive")
+    class Reactive {
+
+        @Autowired
+        private MockMvc mvc;
+
+        @ParameterizedTest
+        @ValueSource(strings = {"/bookings/export", "/bookings/owner/export"})
+        void shouldProxyNotFound(String path) throws Exception {
+            expectNotFound(mvc, path);
+        }
+    }
+
+    private static void expectNotFound(MockMvc mvc, String path) throws Exception {
+        MvcResult result = mvc.perform(get(path)
+                        .header("X-Sharer-User-Id", 99))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult streaming = mvc.perform(asyncDispatch(result))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(streaming))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().bytes(NOT_FOUND.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void unknownUser(HttpExchange exchange) throws IOException {
+        String accept = exchange.getRequestHeaders().getFirst(HttpHeaders.ACCEPT);
+        if (accept == null || !accept.contains(MediaType.APPLICATION_JSON_VALUE)) {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = NOT_FOUND.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        exchange.sendResponseHeaders(404, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.item.ItemClient;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class BlockingServerExchangeTest {
+
+    private static final String BOOKINGS = "[{\"id\":1,\"status\":\"WAITING\"},{\"id\":2,\"status\":\"APPROVED\"}]";
+
+    private MockRestServiceServer server;
+    private BlockingServerExchange exchange;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate rest = new RestTemplate();
+        server = MockRestServiceServer.bindTo(rest).build();
+        exchange = new BlockingServerExchange(rest);
+    }
+
+    @Test
+    void shouldPassServerBodyAndHeadersThroughUnchanged() {
+        HttpHeaders serverHeaders = new HttpHeaders();
+        serverHeaders.set("X-Next-Cursor", "abc");
+        serverHeaders.set(HttpHeaders.TRANSFER_ENCODING, "chunked");
+        server.expect(requestTo("/bookings"))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andRespond(withSuccess(BOOKINGS, MediaType.APPLICATION_JSON).headers(serverHeaders));
+
+        ResponseEntity<Object> response = exchange.exchange(HttpMethod.GET, "/bookings", 1L, null, null).block();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(BOOKINGS.getBytes(StandardCharsets.UTF_8), (byte[]) response.getBody());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertEquals("abc", response.getHeaders().getFirst("X-Next-Cursor"));
+        assertFalse(response.getHeaders().containsKey(HttpHeaders.TRANSFER_ENCODING));
+        server.verify();
+    }
+
+    @Test
+    void shouldPassServerErrorBodyAndContentType() {
+        String error = "{\"error\":\"Пользователь по id - 1 не найден\"}";
+        server.expect(requestTo("/users/1"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(error));
+
+        ResponseEntity<Object> response = exchange.exchange(HttpMethod.GET, "/users/1", null, null, null).block();
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertArrayEquals(error.getBytes(StandardCharsets.UTF_8), (byte[]) response.getBody());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+    }
+
+    @Test
+    void shouldForwardIfNoneMatchAndPassNotModifiedThrough() {
+        MockHttpServletRequest clientRequest = new MockHttpServletRequest();
+        clientRequest.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"1\"");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(clientRequest));
+        HttpHeaders serverHeaders = new HttpHeaders();
+        serverHeaders.setETag("W/\"1\"");
+        server.expect(requestTo("/items/?from=0&size=10"))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "W/\"1\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED).headers(serverHeaders));
+
+        try {
+            ResponseEntity<Object> response = new ItemClient(exchange,
+                    new ServerResponseCache(Duration.ofMinutes(1), DataSize.ofMegabytes(1)))
+                    .getAllByUserId(1L, 0, 10)
+                    .block();
+
+            assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+            assertEquals("W/\"1\"", response.getHeaders().getETag());
+            assertNull(response.getBody());
+            server.verify();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    void shouldStreamServerBodyWithStatusAndHeaders() throws Exception {
+        String bookings = "{\"id\":1}\n{\"id\":2}\n";
+        server.expect(requestTo("/bookings/export"))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andExpect(header(HttpHeaders.ACCEPT, "application/x-ndjson, application/json"))
+                .andRespond(withSuccess(bookings, MediaType.APPLICATION_NDJSON));
+
+        ResponseEntity<StreamingResponseBody> response = exchange.stream("/bookings/export", 1L).block();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        response.getBody().writeTo(body);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        assertArrayEquals(bookings.getBytes(StandardCharsets.UTF_8), body.toByteArray());
+        server.verify();
+    }
+
+    @Test
+    void shouldStreamUncachedGetBodyWithServerHeaders() throws Exception {
+        HttpHeaders serverHeaders = new HttpHeaders();
+        serverHeaders.set("X-Next-Cursor", "abc");
+        server.expect(requestTo("/bookings?state=ALL"))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andRespond(withSuccess(BOOKINGS, MediaType.APPLICATION_JSON).headers(serverHeaders));
+
+        ResponseEntity<Object> response = exchange.passthrough("/bookings?state={state}", 1L, Map.of("state", "ALL"),
+                HttpHeaders.EMPTY).block();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(body);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertEquals("abc", response.getHeaders().getFirst("X-Next-Cursor"));
+        assertArrayEquals(BOOKINGS.getBytes(StandardCharsets.UTF_8), body.toByteArray());
+        server.verify();
+    }
+
+    @Test
+    void shouldStreamServerErrorBody() throws Exception {
+        String error = "{\"error\":\"Пользователь по id - 1 не найден\"}";
+        server.expect(requestTo("/bookings"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(error));
+
+        ResponseEntity<Object> response = exchange.passthrough("/bookings", 1L, null, HttpHeaders.EMPTY).block();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(body);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertArrayEquals(error.getBytes(StandardCharsets.UTF_8), body.toByteArray());
+    }
+}
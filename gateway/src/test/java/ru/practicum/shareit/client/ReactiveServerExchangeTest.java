@@ -0,0 +1,157 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveServerExchangeTest {
+
+    private static final String BOOKINGS = "[{\"id\":1,\"status\":\"WAITING\"},{\"id\":2,\"status\":\"APPROVED\"}]";
+
+    private final AtomicReference<ClientRequest> sent = new AtomicReference<>();
+
+    @Test
+    void shouldPassServerBodyAndHeadersThroughUnchanged() {
+        ReactiveServerExchange exchange = exchangeRespondingWith(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header("X-Next-Cursor", "abc")
+                .header(HttpHeaders.TRANSFER_ENCODING, "chunked")
+                .body(BOOKINGS)
+                .build());
+
+        ResponseEntity<Object> response = exchange.exchange(HttpMethod.GET, "/bookings?state={state}", 1L,
+                Map.of("state", "ALL"), null).block();
+
+        assertEquals(HttpMethod.GET, sent.get().method());
+        assertEquals("/bookings?state=ALL", sent.get().url().toString());
+        assertEquals("1", sent.get().headers().getFirst("X-Sharer-User-Id"));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(BOOKINGS.getBytes(StandardCharsets.UTF_8), (byte[]) response.getBody());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertEquals("abc", response.getHeaders().getFirst("X-Next-Cursor"));
+        assertFalse(response.getHeaders().containsKey(HttpHeaders.TRANSFER_ENCODING));
+    }
+
+    @Test
+    void shouldPassServerErrorBodyAndContentType() {
+        String error = "{\"error\":\"Пользователь по id - 1 не найден\"}";
+        ReactiveServerExchange exchange = exchangeRespondingWith(ClientResponse.create(HttpStatus.NOT_FOUND)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(error)
+                .build());
+
+        ResponseEntity<Object> response = exchange.exchange(HttpMethod.GET, "/users/1", null, null, null).block();
+
+        assertNull(sent.get().headers().getFirst("X-Sharer-User-Id"));
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertArrayEquals(error.getBytes(StandardCharsets.UTF_8), (byte[]) response.getBody());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+    }
+
+    @Test
+    void shouldDropEmptyBody() {
+        ReactiveServerExchange exchange = exchangeRespondingWith(ClientResponse.create(HttpStatus.OK).build());
+
+        ResponseEntity<Object> response = exchange.exchange(HttpMethod.DELETE, "/users/1", null, null, null).block();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    private ReactiveServerExchange exchangeRespondingWith(ClientResponse response) {
+        return new ReactiveServerExchange(WebClient.builder()
+                .exchangeFunction(request -> {
+                    sent.set(request);
+                    return Mono.just(response);
+                })
+                .build());
+    }
+
+    @Test
+    void shouldStreamServerErrorWithStatus() throws Exception {
+        String error = "{\"error\":\"Пользователь по id - 1 не найден\"}";
+        ReactiveServerExchange exchange = exchangeRespondingWith(ClientResponse.create(HttpStatus.NOT_FOUND)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(error)
+                .build());
+
+        ResponseEntity<StreamingResponseBody> response = exchange.stream("/bookings/owner/export", 1L).block();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        response.getBody().writeTo(body);
+
+        assertEquals("/bookings/owner/export", sent.get().url().toString());
+        assertEquals(List.of(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON),
+                sent.get().headers().getAccept());
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertArrayEquals(error.getBytes(StandardCharsets.UTF_8), body.toByteArray());
+    }
+
+    @Test
+    void shouldCancelServerBodyNotWrittenToClient() {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        ReactiveServerExchange exchange = exchangeRespondingWith(ClientResponse.create(HttpStatus.OK)
+                .body(Flux.<DataBuffer>never().doOnCancel(cancelled::countDown))
+                .build());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            exchange.stream("/bookings/export", 1L).block();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        ServerResponseBody.closeUnwritten(request);
+
+        assertEquals(0, cancelled.getCount());
+    }
+
+    @Test
+    void shouldCancelServerBodyWhenWritingIsInterrupted() throws Exception {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        ReactiveServerExchange exchange = exchangeRespondingWith(ClientResponse.create(HttpStatus.OK)
+                .body(Flux.<DataBuffer>never().doOnCancel(cancelled::countDown))
+                .build());
+        StreamingResponseBody body = exchange.stream("/bookings/export", 1L).block().getBody();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+
+        Thread writer = new Thread(() -> {
+            try {
+                body.writeTo(new ByteArrayOutputStream());
+            } catch (IOException e) {
+                failure.set(e);
+            }
+        });
+        writer.start();
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+        assertInstanceOf(InterruptedIOException.class, failure.get());
+    }
+}
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.resources.ConnectionProvider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class ServerHttpClientConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(ServerHttpClientConfig.class);
+
+    @Test
+    void shouldConfigurePoolLimitsFromProperties() {
+        contextRunner
+                .withPropertyValues("shareit-server.http.max-total=50", "shareit-server.http.max-per-route=20",
+                        "shareit-server.http.validate-after-inactivity=500ms")
+                .run(context -> {
+                    PoolingHttpClientConnectionManager connectionManager =
+                            context.getBean(PoolingHttpClientConnectionManager.class);
+
+                    assertEquals(50, connectionManager.getMaxTotal());
+                    assertEquals(20, connectionManager.getDefaultMaxPerRoute());
+                    assertEquals(500, connectionManager.getValidateAfterInactivity());
+                    assertInstanceOf(HttpComponentsClientHttpRequestFactory.class,
+                            context.getBean(ClientHttpRequestFactory.class));
+                });
+    }
+
+    @Test
+    void shouldExposePoolMetrics() {
+        contextRunner.run(context -> {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            context.getBean(MeterBinder.class).bindTo(registry);
+
+            assertEquals(200, registry.get("httpcomponents.httpclient.pool.total.max")
+                    .tag("httpclient", "shareit-server").gauge().value());
+            assertEquals(0, registry.get("httpcomponents.httpclient.pool.total.connections")
+                    .tag("httpclient", "shareit-server").tag("state", "leased").gauge().value());
+            assertEquals(0, registry.get("httpcomponents.httpclient.pool.total.pending")
+                    .tag("httpclient", "shareit-server").gauge().value());
+        });
+    }
+
+    @Test
+    void shouldConfigureReactivePoolInReactiveMode() {
+        contextRunner
+                .withPropertyValues("shareit-server.client=reactive", "shareit-server.http.max-total=50")
+                .run(context -> {
+                    ConnectionProvider connectionProvider = context.getBean(ConnectionProvider.class);
+
+                    assertEquals(50, connectionProvider.maxConnections());
+                    assertInstanceOf(ReactorClientHttpConnector.class, context.getBean(ClientHttpConnector.class));
+                    assertFalse(context.containsBean("serverConnectionManager"));
+                });
+    }
+}
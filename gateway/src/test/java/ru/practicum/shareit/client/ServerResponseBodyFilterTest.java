@@ -0,0 +1,94 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Клиент разрывает соединение, пока ответ сервера уже получен, а его тело еще не передано: соединение
+ * с сервером возвращается в пул без копирования тела.
+ */
+@SpringBootTest(properties = "shareit-server.client=blocking")
+@AutoConfigureMockMvc
+class ServerResponseBodyFilterTest {
+
+    private static final byte[] BOOKINGS = "[{\"id\":1,\"status\":\"WAITING\"}]".getBytes(StandardCharsets.UTF_8);
+
+    private static HttpServer server;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private PoolingHttpClientConnectionManager serverConnectionManager;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/bookings", ServerResponseBodyFilterTest::bookings);
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    @DynamicPropertySource
+    static void serverUrl(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", () -> "http://localhost:" + server.getAddress().getPort());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/bookings?state=ALL", "/bookings/export"})
+    void shouldReturnConnectionToPoolWhenClientAbortsBeforeBodyIsWritten(String path) throws Exception {
+        MvcResult result = mvc.perform(get(path)
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(1, serverConnectionManager.getTotalStats().getLeased());
+
+        // так контейнер завершает асинхронный запрос, когда клиент отключился до записи ответа
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        IOException abort = new IOException("Connection reset by peer");
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onError(new AsyncEvent(asyncContext, abort));
+        }
+        asyncContext.complete();
+
+        assertEquals(0, serverConnectionManager.getTotalStats().getLeased());
+    }
+
+    private static void bookings(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        exchange.sendResponseHeaders(200, BOOKINGS.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(BOOKINGS);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.booking.BookingClient;
+import ru.practicum.shareit.item.ItemClient;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.ItemRequestClient;
+import ru.practicum.shareit.user.UserClient;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ServerResponseCacheTest {
+
+    private static final byte[] ITEM = "{\"id\":1,\"name\":\"Дрель\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BOOKING = "{\"id\":7,\"status\":\"APPROVED\",\"item\":{\"id\":1,\"name\":\"Дрель\"}}"
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ERROR = "{\"error\":\"Бронирование уже подтверждено\"}".getBytes(StandardCharsets.UTF_8);
+
+    private ServerResponseCache cache;
+    private ServerExchange exchange;
+    private ItemClient itemClient;
+    private BookingClient bookingClient;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ServerResponseCache(Duration.ofMinutes(1), DataSize.ofMegabytes(1));
+        exchange = mock(ServerExchange.class);
+        itemClient = new ItemClient(exchange, cache);
+        bookingClient = new BookingClient(exchange, cache, new ObjectMapper());
+        when(exchange.exchange(any(), anyString(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> Mono.just(ResponseEntity.ok((Object) ITEM)));
+    }
+
+    @Test
+    void shouldServeRepeatedReadFromCache() {
+        ResponseEntity<Object> first = itemClient.getItemById(1L, 1L).block();
+        ResponseEntity<Object> second = itemClient.getItemById(1L, 1L).block();
+
+        assertSame(first, second);
+        verify(exchange, times(1)).exchange(eq(HttpMethod.GET), eq("/items/1"), eq(1L), isNull(), isNull(), any());
+    }
+
+    @Test
+    void shouldKeepResponsesOfDifferentUsersApart() {
+        itemClient.getItemById(1L, 1L).block();
+        itemClient.getItemById(1L, 2L).block();
+
+        verify(exchange, times(1)).exchange(eq(HttpMethod.GET), eq("/items/1"), eq(1L), isNull(), isNull(), any());
+        verify(exchange, times(1)).exchange(eq(HttpMethod.GET), eq("/items/1"), eq(2L), isNull(), isNull(), any());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void shouldEvictItemForAllUsersAfterUpdate() {
+        itemClient.getItemById(1L, 1L).block();
+        itemClient.getItemById(1L, 2L).block();
+        itemClient.getItemById(10L, 1L).block();
+
+        itemClient.updateItem(new ItemDto(), 1L, 1L).block();
+
+        assertEquals(1, cache.size());
+        itemClient.getItemById(1L, 1L).block();
+        verify(exchange, times(2)).exchange(eq(HttpMethod.GET), eq("/items/1"), eq(1L), isNull(), isNull(), any());
+    }
+
+    @Test
+    void shouldEvictRequestsAnsweredByItemAfterItemUpdate() {
+        ItemRequestClient requestClient = new ItemRequestClient(exchange, cache);
+        requestClient.getRequestById(2L, 5L).block();
+
+        itemClient.updateItem(new ItemDto(), 1L, 1L).block();
+        requestClient.getRequestById(2L, 5L).block();
+
+        verify(exchange, times(2)).exchange(eq(HttpMethod.GET), eq("/requests/5"), eq(2L), isNull(), isNull(), any());
+    }
+
+    @Test
+    void shouldEvictUserItemsAndRequestsAfterRename() {
+        UserClient userClient = new UserClient(exchange, cache);
+        ItemRequestClient requestClient = new ItemRequestClient(exchange, cache);
+        userClient.getUserById(3L).block();
+        userClient.getUserById(13L).block();
+        itemClient.getItemById(1L, 1L).block();
+        requestClient.getRequestById(2L, 5L).block();
+
+        userClient.updateUser(UserDto.builder().name("Новое имя").build(), 3L).block();
+
+        assertEquals(1, cache.size());
+        userClient.getUserById(13L).block();
+        itemClient.getItemById(1L, 1L).block();
+        verify(exchange, times(1)).exchange(eq(HttpMethod.GET), eq("/users/13"), isNull(), isNull(), isNull(), any());
+        verify(exchange, times(2)).exchange(eq(HttpMethod.GET), eq("/items/1"), eq(1L), isNull(), isNull(), any());
+    }
+
+    @Test
+    void shouldEvictUserItemsAndRequestsAfterDelete() {
+        UserClient userClient = new UserClient(exchange, cache);
+        ItemRequestClient requestClient = new ItemRequestClient(exchange, cache);
+        userClient.getUserById(3L).block();
+        userClient.getUserById(13L).block();
+        itemClient.getItemById(1L, 3L).block();
+        itemClient.getItemById(1L, 1L).block();
+        requestClient.getRequestById(2L, 5L).block();
+
+        userClient.delete(3L).block();
+
+        assertEquals(1, cache.size());
+        userClient.getUserById(13L).block();
+        requestClient.getRequestById(2L, 5L).block();
+        verify(exchange, times(1)).exchange(eq(HttpMethod.GET), eq("/users/13"), isNull(), isNull(), isNull(), any());
+        verify(exchange, times(2)).exchange(eq(HttpMethod.GET), eq("/requests/5"), eq(2L), isNull(), isNull(), any());
+    }
+
+    @Test
+    void shouldEvictOnlyItemOfApprovedBooking() {
+        when(exchange.exchange(eq(HttpMethod.PATCH), eq("/bookings/7?approved=true"), eq(1L), isNull(), isNull(),
+                any())).thenReturn(Mono.just(ResponseEntity.ok((Object) BOOKING)));
+        itemClient.getItemById(1L, 1L).block();
+        itemClient.getItemById(1L, 2L).block();
+        itemClient.getItemById(10L, 1L).block();
+
+        bookingClient.approve(1L, 7L, true).block();
+
+        assertEquals(1, cache.size());
+        itemClient.getItemById(10L, 1L).block();
+        verify(exchange, times(1)).exchange(eq(HttpMethod.GET), eq("/items/10"), eq(1L), isNull(), isNull(), any());
+    }
+
+    @Test
+    void shouldKeepItemsWhenServerRejectsApprove() {
+        when(exchange.exchange(eq(HttpMethod.PATCH), eq("/bookings/7?approved=true"), eq(1L), isNull(), isNull(),
+                any())).thenReturn(Mono.just(ResponseEntity.badRequest().body((Object) ERROR)));
+        itemClient.getItemById(1L, 1L).block();
+
+        bookingClient.approve(1L, 7L, true).block();
+
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void shouldEvictAllItemsWhenApproveOutcomeIsUnknown() {
+        when(exchange.exchange(eq(HttpMethod.PATCH), eq("/bookings/7?approved=true"), eq(1L), isNull(), isNull(),
+                any())).thenReturn(Mono.error(new IllegalStateException("нет ответа")));
+        UserClient userClient = new UserClient(exchange, cache);
+        userClient.getUserById(3L).block();
+        itemClient.getItemById(1L, 1L).block();
+        itemClient.getItemById(10L, 1L).block();
+
+        assertThrows(IllegalStateException.class, () -> bookingClient.approve(1L, 7L, true).block());
+
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void shouldNotCacheErrorResponses() {
+        when(exchange.exchange(eq(HttpMethod.GET), eq("/items/1"), eq(1L), isNull(), isNull(), any()))
+                .thenAnswer(invocation -> Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).build()));
+
+        itemClient.getItemById(1L, 1L).block();
+        itemClient.getItemById(1L, 1L).block();
+
+        verify(exchange, times(2)).exchange(eq(HttpMethod.GET), eq("/items/1"), eq(1L), isNull(), isNull(), any());
+    }
+
+    @Test
+    void shouldNotStoreResponseLoadedDuringChange() {
+        cache.get("/items/1", 1L, () -> {
+            cache.evict("/items/1");
+            return Mono.just(ResponseEntity.ok((Object) ITEM));
+        }).block();
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldExposeHitRatioAndWeight() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        itemClient.getItemById(1L, 1L).block();
+        itemClient.getItemById(1L, 1L).block();
+        cache.size();
+
+        assertEquals(1, registry.get("cache.gets").tag("cache", "gateway.responses").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tag("cache", "gateway.responses").tag("result", "miss")
+                .functionCounter().count());
+        assertTrue(registry.get("cache.weight").tag("cache", "gateway.responses").gauge().value() > ITEM.length);
+    }
+}
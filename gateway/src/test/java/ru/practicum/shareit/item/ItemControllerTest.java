@@ -10,6 +10,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
@@ -20,6 +22,7 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ItemController.class)
@@ -58,12 +61,17 @@ class ItemControllerTest {
     public void shouldReturn201WhenCreateItem() throws Exception {
         String item = mapper.writeValueAsString(itemDto);
 
-        when(itemClient.createItem(any(ItemDto.class), anyLong())).thenReturn(new ResponseEntity<>(item, HttpStatus.CREATED));
+        when(itemClient.createItem(any(ItemDto.class), anyLong()))
+                .thenReturn(Mono.just(new ResponseEntity<>(item, HttpStatus.CREATED)));
 
-        String content = mvc.perform(post("/items")
+        MvcResult result = mvc.perform(post("/items")
                         .content(item)
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String content = mvc.perform(asyncDispatch(result))
                 .andExpect(status().isCreated())
                 .andReturn()
                 .getResponse()
@@ -76,12 +84,17 @@ class ItemControllerTest {
     void shouldReturn200WhenUpdateItem() throws Exception {
         String item = mapper.writeValueAsString(itemDto);
 
-        when(itemClient.updateItem(any(ItemDto.class), anyLong(), anyLong())).thenReturn(new ResponseEntity<>(item, HttpStatus.OK));
+        when(itemClient.updateItem(any(ItemDto.class), anyLong(), anyLong()))
+                .thenReturn(Mono.just(new ResponseEntity<>(item, HttpStatus.OK)));
 
-        String content = mvc.perform(patch("/items/{Id}", 1)
+        MvcResult result = mvc.perform(patch("/items/{Id}", 1)
                         .content(item)
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String content = mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andReturn()
                 .getResponse()
@@ -123,12 +136,16 @@ class ItemControllerTest {
         String comment = mapper.writeValueAsString(commentDto);
 
         when(itemClient.createComment(anyLong(), anyLong(), any(CommentDto.class)))
-                .thenReturn(new ResponseEntity<>(comment, HttpStatus.OK));
+                .thenReturn(Mono.just(new ResponseEntity<>(comment, HttpStatus.OK)));
 
-        String content = mvc.perform(post("/items/{id}/comment", 1)
+        MvcResult result = mvc.perform(post("/items/{id}/comment", 1)
                         .content(comment)
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String content = mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andReturn()
                 .getResponse()
@@ -139,4 +156,13 @@ class ItemControllerTest {
         verify(itemClient).createComment(anyLong(), anyLong(), any(CommentDto.class));
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldPassCursorWhenGetItemsAfterCursor() throws Exception {
+        mvc.perform(get("/items?cursor={cursor}&size={size}", "abc", 5)
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk());
+
+        verify(itemClient).getAllByUserIdAfter(1, "abc", 5);
+    }
+
+}
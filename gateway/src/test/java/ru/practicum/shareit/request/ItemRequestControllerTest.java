@@ -10,6 +10,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import java.time.LocalDateTime;
@@ -18,8 +20,10 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ItemRequestController.class)
@@ -51,12 +55,16 @@ class ItemRequestControllerTest {
         String request = mapper.writeValueAsString(itemRequest);
 
         when(requestClient.createItemRequest(anyLong(), any(ItemRequestDto.class)))
-                .thenReturn(new ResponseEntity<>(request, HttpStatus.CREATED));
+                .thenReturn(Mono.just(new ResponseEntity<>(request, HttpStatus.CREATED)));
 
-        String content = mvc.perform(post("/requests")
+        MvcResult result = mvc.perform(post("/requests")
                         .content(request)
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String content = mvc.perform(asyncDispatch(result))
                 .andExpect(status().isCreated())
                 .andReturn()
                 .getResponse()
@@ -94,4 +102,13 @@ class ItemRequestControllerTest {
         verify(requestClient).getRequestById(anyLong(), anyLong());
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldPassCursorWhenGetAllRequestsAfterCursor() throws Exception {
+        mvc.perform(get("/requests/all?cursor={cursor}&size={size}", "abc", 5)
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk());
+
+        verify(requestClient).getAllRequestsAfter("abc", 5, 1);
+    }
+
+}
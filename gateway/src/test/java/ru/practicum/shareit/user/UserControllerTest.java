@@ -10,6 +10,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -17,6 +19,7 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(UserController.class)
@@ -46,11 +49,16 @@ class UserControllerTest {
     void shouldGet201WhenCreateUser() throws Exception {
         String user = mapper.writeValueAsString(userDto);
 
-        when(userClient.createUser(any(UserDto.class))).thenReturn(new ResponseEntity<>(user, HttpStatus.CREATED));
+        when(userClient.createUser(any(UserDto.class)))
+                .thenReturn(Mono.just(new ResponseEntity<>(user, HttpStatus.CREATED)));
 
-        String content = mvc.perform(post("/users")
+        MvcResult result = mvc.perform(post("/users")
                         .content(user)
                         .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String content = mvc.perform(asyncDispatch(result))
                 .andExpect(status().isCreated())
                 .andReturn()
                 .getResponse()
@@ -64,11 +72,15 @@ class UserControllerTest {
         String user = mapper.writeValueAsString(userDto);
 
         when(userClient.updateUser(any(UserDto.class), anyLong()))
-                .thenReturn(new ResponseEntity<>(user, HttpStatus.OK));
+                .thenReturn(Mono.just(new ResponseEntity<>(user, HttpStatus.OK)));
 
-        String content = mvc.perform(patch("/users/{id}", 1)
+        MvcResult result = mvc.perform(patch("/users/{id}", 1)
                         .content(user)
                         .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String content = mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andReturn()
                 .getResponse()
@@ -1,11 +1,22 @@
 package ru.practicum.shareit.booking.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.service.BookingExport;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingOutputDto;
+import ru.practicum.shareit.pagination.CursorCodec;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
@@ -17,9 +28,11 @@ import java.util.List;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final ObjectWriter bookingWriter;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, ObjectMapper objectMapper) {
         this.bookingService = bookingService;
+        this.bookingWriter = objectMapper.writerFor(BookingOutputDto.class);
     }
 
     @PostMapping
@@ -43,21 +56,71 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingOutputDto> getBookingsByBookerId(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
-                                                        @RequestParam(name = "state",
-                                                              defaultValue = "ALL") String state,
-                                                        @RequestParam(defaultValue = "0") Integer from,
-                                                        @RequestParam(defaultValue = "10") Integer size) {
-        return bookingService.getBookingsByBookerId(userId, state, from, size);
+    public ResponseEntity<List<BookingOutputDto>> getBookingsByBookerId(@RequestHeader(name = "X-Sharer-User-Id")
+                                                                        Long userId,
+                                                                        @RequestParam(name = "state",
+                                                                              defaultValue = "ALL") String state,
+                                                                        @RequestParam(defaultValue = "0") Integer from,
+                                                                        @RequestParam(defaultValue = "10") Integer size,
+                                                                        @RequestParam(required = false) String cursor,
+                                                                        WebRequest webRequest) {
+        if (webRequest.checkNotModified(bookingService.getBookingsByBookerIdETag(userId, state))) {
+            return null;
+        }
+        List<BookingOutputDto> bookings = cursor == null
+                ? bookingService.getBookingsByBookerId(userId, state, from, size)
+                : bookingService.getBookingsByBookerIdAfter(userId, state, cursor, size);
+        return withNextCursor(bookings, size);
     }
 
     @GetMapping
     @RequestMapping("/owner")
-    public List<BookingOutputDto> getBookingsByUserId(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
-                                                      @RequestParam(name = "state",
-                                                                defaultValue = "ALL") String state,
-                                                      @RequestParam(defaultValue = "0") Integer from,
-                                                      @RequestParam(defaultValue = "10") Integer size) {
-        return bookingService.getBookingsByUserId(userId, state, from, size);
+    public ResponseEntity<List<BookingOutputDto>> getBookingsByUserId(@RequestHeader(name = "X-Sharer-User-Id")
+                                                                      Long userId,
+                                                                      @RequestParam(name = "state",
+                                                                            defaultValue = "ALL") String state,
+                                                                      @RequestParam(defaultValue = "0") Integer from,
+                                                                      @RequestParam(defaultValue = "10") Integer size,
+                                                                      @RequestParam(required = false) String cursor,
+                                                                      WebRequest webRequest) {
+        if (webRequest.checkNotModified(bookingService.getBookingsByUserIdETag(userId, state))) {
+            return null;
+        }
+        List<BookingOutputDto> bookings = cursor == null
+                ? bookingService.getBookingsByUserId(userId, state, from, size)
+                : bookingService.getBookingsByUserIdAfter(userId, state, cursor, size);
+        return withNextCursor(bookings, size);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBookingsByBookerId(@RequestHeader(name = "X-Sharer-User-Id")
+                                                                          Long userId) {
+        return ndjson(bookingService.exportBookingsByBookerId(userId));
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportBookingsByUserId(@RequestHeader(name = "X-Sharer-User-Id")
+                                                                        Long userId) {
+        return ndjson(bookingService.exportBookingsByUserId(userId));
+    }
+
+    /**
+     * Бронирования пишутся в ответ по одному JSON-объекту на строку, по мере чтения из БД.
+     */
+    private ResponseEntity<StreamingResponseBody> ndjson(BookingExport export) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> export.forEach(booking -> {
+                    try {
+                        out.write(bookingWriter.writeValueAsBytes(booking));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+    }
+
+    private static ResponseEntity<List<BookingOutputDto>> withNextCursor(List<BookingOutputDto> bookings, int size) {
+        return CursorCodec.withNextCursor(bookings, BookingCursor.next(bookings, size));
     }
 }
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.pagination.CursorCodec;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Позиция в списке бронирований, отсортированном по (start, id) по убыванию.
+ */
+@Getter
+@AllArgsConstructor
+public class BookingCursor {
+
+    private final LocalDateTime start;
+    private final Long id;
+
+    public static BookingCursor decode(String cursor) {
+        return CursorCodec.decode(cursor, parts -> new BookingCursor(LocalDateTime.parse(parts[0]),
+                Long.parseLong(parts[1])));
+    }
+
+    public static String next(List<BookingOutputDto> bookings, int size) {
+        return CursorCodec.next(bookings, size, last -> new BookingCursor(last.getStart(), last.getId()).encode());
+    }
+
+    public String encode() {
+        return CursorCodec.encode(start, id);
+    }
+}
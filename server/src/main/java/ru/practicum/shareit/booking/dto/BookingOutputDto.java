@@ -22,4 +22,14 @@ public class BookingOutputDto {
     private ItemDto item;
     private UserDto booker;
     private Status status;
+
+    /**
+     * Конструктор для JPQL-проекции списков бронирований ({@code select new ...}).
+     */
+    public BookingOutputDto(Long id, LocalDateTime start, LocalDateTime end, Status status,
+                            Long itemId, String itemName, String itemDescription, Boolean itemAvailable,
+                            Long bookerId, String bookerName, String bookerEmail) {
+        this(id, start, end, new ItemDto(itemId, itemName, itemDescription, itemAvailable),
+                UserDto.builder().id(bookerId).name(bookerName).email(bookerEmail).build(), status);
+    }
 }
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingOutputDto;
+import ru.practicum.shareit.booking.model.State;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Страницы списков бронирований арендатора и владельца вещей по состоянию - одним запросом
+ * вместо отдельного метода на каждое сочетание стороны, состояния и вида пагинации.
+ */
+public interface BookingListRepository {
+
+    enum Side {
+        BOOKER,
+        ITEM_OWNER
+    }
+
+    /**
+     * Бронирования по убыванию (start, id). after - позиция, после которой начинается страница,
+     * null - страница по смещению из page.
+     */
+    List<BookingOutputDto> findPage(Side side, Long userId, State state, LocalDateTime now, BookingCursor after,
+                                    Pageable page);
+}
@@ -0,0 +1,99 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingOutputDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.State;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Значения передаются параметрами, а не литералами: текст SQL зависит только от стороны, состояния
+ * и наличия курсора, и подготовленные запросы переиспользуются.
+ */
+public class BookingListRepositoryImpl implements BookingListRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<BookingOutputDto> findPage(Side side, Long userId, State state, LocalDateTime now,
+                                           BookingCursor after, Pageable page) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookingOutputDto> query = cb.createQuery(BookingOutputDto.class);
+        Root<Booking> b = query.from(Booking.class);
+        Join<Booking, Item> i = b.join("item");
+        Join<Booking, User> u = b.join("booker");
+        Path<LocalDateTime> start = b.get("start");
+        Path<LocalDateTime> end = b.get("end");
+        Path<Long> id = b.get("id");
+
+        query.select(cb.construct(BookingOutputDto.class, id, start, end, b.get("status"),
+                i.get("id"), i.get("name"), i.get("description"), i.get("available"),
+                u.get("id"), u.get("name"), u.get("email")));
+
+        List<Consumer<TypedQuery<?>>> bindings = new ArrayList<>();
+        List<Predicate> where = new ArrayList<>();
+        Expression<Long> user = parameter(cb, Long.class, userId, bindings);
+        where.add(side == Side.BOOKER ? cb.equal(u.get("id"), user) : cb.equal(i.get("owner").get("id"), user));
+        switch (state) {
+            case CURRENT:
+                Expression<LocalDateTime> current = parameter(cb, LocalDateTime.class, now, bindings);
+                where.add(cb.lessThan(start, current));
+                where.add(cb.greaterThan(end, current));
+                break;
+            case PAST:
+                where.add(cb.lessThan(end, parameter(cb, LocalDateTime.class, now, bindings)));
+                break;
+            case FUTURE:
+                where.add(cb.greaterThan(start, parameter(cb, LocalDateTime.class, now, bindings)));
+                break;
+            case WAITING:
+                where.add(cb.equal(b.get("status"), parameter(cb, Status.class, Status.WAITING, bindings)));
+                break;
+            case REJECTED:
+                where.add(cb.equal(b.get("status"), parameter(cb, Status.class, Status.REJECTED, bindings)));
+                break;
+            default:
+        }
+        if (after != null) {
+            Expression<LocalDateTime> afterStart = parameter(cb, LocalDateTime.class, after.getStart(), bindings);
+            where.add(cb.or(cb.lessThan(start, afterStart),
+                    cb.and(cb.equal(start, afterStart),
+                            cb.lessThan(id, parameter(cb, Long.class, after.getId(), bindings)))));
+        }
+        query.where(where.toArray(new Predicate[0]))
+                .orderBy(cb.desc(start), cb.desc(id));
+
+        TypedQuery<BookingOutputDto> typed = entityManager.createQuery(query)
+                .setFirstResult((int) page.getOffset())
+                .setMaxResults(page.getPageSize());
+        bindings.forEach(binding -> binding.accept(typed));
+        return typed.getResultList();
+    }
+
+    private static <T> Expression<T> parameter(CriteriaBuilder cb, Class<T> type, T value,
+                                               List<Consumer<TypedQuery<?>>> bindings) {
+        ParameterExpression<T> parameter = cb.parameter(type);
+        bindings.add(query -> query.setParameter(parameter, value));
+        return parameter;
+    }
+}
@@ -1,45 +1,86 @@
 package ru.practicum.shareit.booking.repository;
 
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingOutputDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-    List<Booking> findAllByBookerIdOrderByStartDesc(Long bookerId, PageRequest pageRequest);
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingListRepository {
 
-    List<Booking> findAllByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(Long bookerId, LocalDateTime start,
-                                                                           LocalDateTime end, PageRequest pageRequest);
+    String WITH_ITEM_AND_BOOKER = "Booking.withItemAndBooker";
+    /**
+     * Списки только отображаются - DTO строятся прямо в запросе, без управляемых сущностей.
+     */
+    String OUTPUT = "select new ru.practicum.shareit.booking.dto.BookingOutputDto(b.id, b.start, b.end, b.status, " +
+            "i.id, i.name, i.description, i.available, u.id, u.name, u.email) " +
+            "from Booking b join b.item i join b.booker u ";
+    String BY_BOOKER = OUTPUT + "where u.id = ?1 ";
+    String BY_ITEM_OWNER = OUTPUT + "where i.owner.id = ?1 ";
+    String SEEK_ORDER = "order by b.start desc, b.id desc";
+    String EXPORT_FETCH_SIZE = "500";
 
-    List<Booking> findAllByBookerIdAndEndBeforeOrderByStartDesc(Long bookerId, LocalDateTime end,
-                                                                PageRequest pageRequest);
+    /**
+     * Выгрузка всей истории: курсор только вперед, строки приходят с сервера БД порциями по EXPORT_FETCH_SIZE.
+     * Поток нужно закрыть внутри транзакции, в которой он открыт.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = EXPORT_FETCH_SIZE))
+    @Query(BY_BOOKER + SEEK_ORDER)
+    Stream<BookingOutputDto> streamAllByBookerId(Long bookerId);
 
-    List<Booking> findAllByBookerIdAndStartAfterOrderByStartDesc(Long bookerId, LocalDateTime start,
-                                                                 PageRequest pageRequest);
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = EXPORT_FETCH_SIZE))
+    @Query(BY_ITEM_OWNER + SEEK_ORDER)
+    Stream<BookingOutputDto> streamAllByItemOwnerId(Long userId);
 
-    List<Booking> findAllByBookerIdAndStatusOrderByStartDesc(Long bookerId, Status status, PageRequest pageRequest);
+    /**
+     * Бронирование вместе с вещью и арендатором: владелец вещи и арендатор для проверки доступа,
+     * а также все поля ответа - одним запросом.
+     */
+    @EntityGraph(WITH_ITEM_AND_BOOKER)
+    Optional<Booking> findWithItemAndBookerById(Long id);
 
-    List<Booking> findAllByItemOwnerIdOrderByStartDesc(Long userId, PageRequest pageRequest);
+    /**
+     * Последнее бронирование вещи со статусом, начавшееся раньше указанного момента.
+     * Обратный просмотр индекса IDX_BOOKINGS_ITEM_STATUS_START до первой строки - O(log n).
+     */
+    Booking findFirstByItemIdAndStatusAndStartBeforeOrderByStartDesc(Long itemId, Status status, LocalDateTime date);
 
-    List<Booking> findAllByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(Long userId, LocalDateTime start,
-                                                                                LocalDateTime end,
-                                                                                PageRequest pageRequest);
+    /**
+     * То же без самого подтверждаемого бронирования: его могли подтвердить параллельно, пока ждали
+     * блокировку вещи, - тогда ответом будет повтор по версии, а не пересечение с самим собой.
+     */
+    Booking findFirstByItemIdAndStatusAndStartBeforeAndIdNotOrderByStartDesc(Long itemId, Status status,
+                                                                            LocalDateTime date, Long id);
 
-    List<Booking> findAllByItemOwnerIdAndEndBeforeOrderByStartDesc(Long userId, LocalDateTime end,
-                                                                   PageRequest pageRequest);
-
-    List<Booking> findAllByItemOwnerIdAndStartAfterOrderByStartDesc(Long userId, LocalDateTime start,
-                                                                    PageRequest pageRequest);
-
-    List<Booking> findAllByItemOwnerIdAndStatusOrderByStartDesc(Long userId, Status status, PageRequest pageRequest);
-
-    List<Booking> findAllByItemOwnerId(Long ownerId);
+    /**
+     * Ближайшее бронирование вещи со статусом, начинающееся позже указанного момента, - O(log n)
+     * по IDX_BOOKINGS_ITEM_STATUS_START.
+     */
+    Booking findFirstByItemIdAndStatusAndStartAfterOrderByStartAsc(Long itemId, Status status, LocalDateTime date);
 
     Booking findFirstByItemIdAndBookerIdAndStatusAndEndIsBeforeOrderByEndDesc(Long itemId, Long ownerId, Status status,
                                                                              LocalDateTime date);
+
+    @Query("select b from Booking b join fetch b.item join fetch b.booker " +
+            "where b.item.id in ?1 and b.status = ?2 and b.start < ?3 " +
+            "and b.start = (select max(l.start) from Booking l " +
+            "where l.item.id = b.item.id and l.status = ?2 and l.start < ?3)")
+    List<Booking> findLastBookingsByItemIds(Collection<Long> itemIds, Status status, LocalDateTime date);
+
+    @Query("select b from Booking b join fetch b.item join fetch b.booker " +
+            "where b.item.id in ?1 and b.status = ?2 and b.start > ?3 " +
+            "and b.start = (select min(n.start) from Booking n " +
+            "where n.item.id = b.item.id and n.status = ?2 and n.start > ?3)")
+    List<Booking> findNextBookingsByItemIds(Collection<Long> itemIds, Status status, LocalDateTime date);
 }
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking.service;
+
+import ru.practicum.shareit.booking.dto.BookingOutputDto;
+
+import java.util.function.Consumer;
+
+/**
+ * Отложенная выгрузка бронирований: строки передаются действию по одной, по мере чтения из БД.
+ */
+@FunctionalInterface
+public interface BookingExport {
+
+    void forEach(Consumer<BookingOutputDto> action);
+}
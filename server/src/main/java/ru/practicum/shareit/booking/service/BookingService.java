@@ -16,4 +16,20 @@ public interface BookingService {
     List<BookingOutputDto> getBookingsByBookerId(Long userId, String state, int from, int size);
 
     List<BookingOutputDto> getBookingsByUserId(Long userId, String state, int from, int size);
+
+    List<BookingOutputDto> getBookingsByBookerIdAfter(Long userId, String state, String cursor, int size);
+
+    List<BookingOutputDto> getBookingsByUserIdAfter(Long userId, String state, String cursor, int size);
+
+    String getBookingsByBookerIdETag(Long userId, String state);
+
+    String getBookingsByUserIdETag(Long userId, String state);
+
+    /**
+     * Вся история бронирований пользователя для потоковой выгрузки. Пользователь проверяется сразу,
+     * а бронирования читаются при вызове {@link BookingExport#forEach} в отдельной read-only транзакции.
+     */
+    BookingExport exportBookingsByBookerId(Long userId);
+
+    BookingExport exportBookingsByUserId(Long userId);
 }
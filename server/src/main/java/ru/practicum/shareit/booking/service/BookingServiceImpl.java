@@ -2,14 +2,23 @@ package ru.practicum.shareit.booking.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import org.springframework.stereotype.Service;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.booking.model.State;
+import ru.practicum.shareit.booking.repository.BookingListRepository.Side;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingOutputDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingMapper;
+import ru.practicum.shareit.etag.ListsVersion;
+import ru.practicum.shareit.etag.ListsVersionRepository;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
@@ -18,23 +27,39 @@ import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
+@Transactional(readOnly = true)
 public class BookingServiceImpl implements BookingService {
 
+    private static final int APPROVE_ATTEMPTS = 3;
+
     private final BookingRepository bookingRepository;
     private final UserService userService;
     private final ItemService itemService;
+    private final ListsVersionRepository listsVersionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate exportTransactionTemplate;
 
-    public BookingServiceImpl(BookingRepository bookingRepository, UserService userService, ItemService itemService) {
+    public BookingServiceImpl(BookingRepository bookingRepository, UserService userService, ItemService itemService,
+                              ListsVersionRepository listsVersionRepository,
+                              PlatformTransactionManager transactionManager) {
         this.bookingRepository = bookingRepository;
         this.userService = userService;
         this.itemService = itemService;
+        this.listsVersionRepository = listsVersionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.exportTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.exportTransactionTemplate.setReadOnly(true);
     }
 
     @Override
+    @Transactional
     public BookingOutputDto create(BookingDto bookingDto, Long userId) {
 
         User booker = userService.returnUserIfExists(userId);
@@ -53,17 +78,43 @@ public class BookingServiceImpl implements BookingService {
             throw new IncorrectParameterException("end");
         }
 
+        checkNoApprovedOverlap(item.getId(), bookingDto.getStart(), bookingDto.getEnd(), null);
+
         Booking booking = BookingMapper.toBooking(bookingDto);
         booking.setBooker(booker);
         booking.setItem(item);
 
         log.info("Создание бронирования - {}", booking);
-        return BookingMapper.toBookingOutputDto(bookingRepository.save(booking));
+        booking = bookingRepository.save(booking);
+        listsVersionRepository.touchUsers(List.of(userId, item.getOwner().getId()), nextChange(booking));
+        return BookingMapper.toBookingOutputDto(booking);
     }
 
+    /**
+     * Подтверждения бронирований одной вещи выполняются по очереди под блокировкой строки вещи в БД,
+     * которая держится до конца транзакции подтверждения, - в том числе между экземплярами сервера.
+     * Так проверка пересечений и смена статуса не перемежаются. Изменение сохраняется условным UPDATE
+     * по версии; если бронирование успели изменить параллельно, попытка повторяется в новой транзакции.
+     */
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BookingOutputDto approve(Long userId, Long bookingId, boolean approve) {
 
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> approveOnce(userId, bookingId, approve));
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt == APPROVE_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("Бронирование по id - {} изменено параллельно, попытка подтверждения - {}",
+                        bookingId, attempt + 1);
+            }
+        }
+    }
+
+    private BookingOutputDto approveOnce(Long userId, Long bookingId, boolean approve) {
+
         Booking booking = returnBookingIfExists(bookingId);
         userService.checkUserIfExists(userId);
 
@@ -77,6 +128,8 @@ public class BookingServiceImpl implements BookingService {
         }
 
         if (approve) {
+            itemService.lockItem(booking.getItem().getId());
+            checkNoApprovedOverlap(booking.getItem().getId(), booking.getStart(), booking.getEnd(), bookingId);
             booking.setStatus(Status.APPROVED);
 
         } else {
@@ -84,120 +137,167 @@ public class BookingServiceImpl implements BookingService {
         }
 
         log.info("Подтверждение бронирования - {}", booking);
-        return BookingMapper.toBookingOutputDto(bookingRepository.save(booking));
+        booking = bookingRepository.saveAndFlush(booking);
+        listsVersionRepository.touchUsers(List.of(booking.getBooker().getId(), userId), null);
+        if (approve) {
+            itemService.refreshBookingSummary(booking.getItem().getId());
+        }
+        return BookingMapper.toBookingOutputDto(booking);
     }
 
     @Override
     public BookingOutputDto getBooking(Long userId, Long bookingId) {
 
         Booking booking = returnBookingIfExists(bookingId);
-        userService.checkUserIfExists(userId);
 
+        // владелец вещи и арендатор существуют, пока есть бронирование (внешние ключи удаляют его вместе с ними),
+        // поэтому пользователь проверяется отдельно, только если бронирование ему недоступно
         if (booking.getItem().getOwner().getId().equals(userId) || booking.getBooker().getId().equals(userId)) {
             log.info("Получение бронирования по id - {} пользователем по id - {}", bookingId, userId);
             return BookingMapper.toBookingOutputDto(booking);
-        } else {
-            throw new NotFoundException("Бронирование по id - " + bookingId +
-                    " не найдено для пользователя по id - " + userId);
         }
+        userService.checkUserIfExists(userId);
+        throw new NotFoundException("Бронирование по id - " + bookingId +
+                " не найдено для пользователя по id - " + userId);
     }
 
     @Override
     public List<BookingOutputDto> getBookingsByBookerId(Long userId, String state, int from, int size) {
+        userService.checkUserIfExists(userId);
 
-        PageRequest pageRequest = PageRequest.of(from / size, size);
+        List<BookingOutputDto> result = bookingRepository.findPage(Side.BOOKER, userId, State.valueOf(state),
+                LocalDateTime.now(), null, PageRequest.of(from / size, size));
 
+        log.info("Получение списка бронирований пользователя по id - {} со статусом - {} : {}",
+                userId, state, result);
+        return result;
+    }
+
+    @Override
+    public List<BookingOutputDto> getBookingsByUserId(Long userId, String state, int from, int size) {
+        checkOwnerHasItems(userId);
+
+        List<BookingOutputDto> result = bookingRepository.findPage(Side.ITEM_OWNER, userId, State.valueOf(state),
+                LocalDateTime.now(), null, PageRequest.of(from / size, size));
+
+        log.info("Получение списка бронирований владельца по id - {} со статусом - {} : {}",
+                userId, state, result);
+        return result;
+    }
+
+    @Override
+    public List<BookingOutputDto> getBookingsByBookerIdAfter(Long userId, String state, String cursor, int size) {
+        BookingCursor after = BookingCursor.decode(cursor);
         userService.checkUserIfExists(userId);
 
-        List<Booking> bookings;
-        LocalDateTime currentTime = LocalDateTime.now();
-
-        State request = State.valueOf(state);
-
-        switch (request) {
-            case CURRENT:
-                bookings = bookingRepository.findAllByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(userId,
-                        currentTime, currentTime, pageRequest);
-                break;
-            case PAST:
-                bookings = bookingRepository.findAllByBookerIdAndEndBeforeOrderByStartDesc(userId, currentTime,
-                        pageRequest);
-                break;
-            case FUTURE:
-                bookings = bookingRepository.findAllByBookerIdAndStartAfterOrderByStartDesc(userId, currentTime,
-                        pageRequest);
-                break;
-            case WAITING:
-                bookings = bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(userId, Status.WAITING,
-                        pageRequest);
-                break;
-            case REJECTED:
-                bookings = bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(userId, Status.REJECTED,
-                        pageRequest);
-                break;
-            default:
-                bookings = bookingRepository.findAllByBookerIdOrderByStartDesc(userId, pageRequest);
-        }
+        List<BookingOutputDto> result = bookingRepository.findPage(Side.BOOKER, userId, State.valueOf(state),
+                LocalDateTime.now(), after, PageRequest.of(0, size));
 
+        log.info("Получение списка бронирований пользователя по id - {} со статусом - {} после - {} : {}",
+                userId, state, cursor, result);
+        return result;
+    }
 
-        log.info("Получение списка бронирований пользователя по id - {} со статусом - {} : {}",
-                userId, state, bookings);
+    @Override
+    public List<BookingOutputDto> getBookingsByUserIdAfter(Long userId, String state, String cursor, int size) {
+        BookingCursor after = BookingCursor.decode(cursor);
+        checkOwnerHasItems(userId);
+
+        List<BookingOutputDto> result = bookingRepository.findPage(Side.ITEM_OWNER, userId, State.valueOf(state),
+                LocalDateTime.now(), after, PageRequest.of(0, size));
 
-        return bookings.stream()
-                .map(BookingMapper::toBookingOutputDto)
-                .collect(Collectors.toList());
+        log.info("Получение списка бронирований владельца по id - {} со статусом - {} после - {} : {}",
+                userId, state, cursor, result);
+        return result;
     }
 
     @Override
-    public List<BookingOutputDto> getBookingsByUserId(Long userId, String state, int from, int size) {
+    public BookingExport exportBookingsByBookerId(Long userId) {
         userService.checkUserIfExists(userId);
+        return action -> export(() -> bookingRepository.streamAllByBookerId(userId), action,
+                "Выгрузка бронирований пользователя по id - {} : {}", userId);
+    }
 
-        if (itemService.getFirstByUserId(userId) == null) {
-            throw new NotAvailableException("У пользователя по id - " + userId + " нет вещей");
-        }
+    @Override
+    public BookingExport exportBookingsByUserId(Long userId) {
+        userService.checkUserIfExists(userId);
+        return action -> export(() -> bookingRepository.streamAllByItemOwnerId(userId), action,
+                "Выгрузка бронирований владельца по id - {} : {}", userId);
+    }
+
+    /**
+     * Выгрузка вызывается уже из потока записи ответа, вне транзакции сервиса, поэтому открывает свою.
+     * Проекция не попадает в контекст персистентности, и память не растет с числом строк.
+     */
+    private void export(Supplier<Stream<BookingOutputDto>> query, Consumer<BookingOutputDto> action,
+                        String message, Long userId) {
+        AtomicLong exported = new AtomicLong();
+        exportTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<BookingOutputDto> bookings = query.get()) {
+                bookings.forEach(booking -> {
+                    action.accept(booking);
+                    exported.incrementAndGet();
+                });
+            }
+        });
+        log.info(message, userId, exported.get());
+    }
+
+    @Override
+    public String getBookingsByBookerIdETag(Long userId, String state) {
+        return eTag(userId, state);
+    }
+
+    @Override
+    public String getBookingsByUserIdETag(Long userId, String state) {
+        return eTag(userId, state);
+    }
 
-        PageRequest pageRequest = PageRequest.of(from / size, size);
-
-        List<Booking> bookings;
-        LocalDateTime currentTime = LocalDateTime.now();
-
-        State request = State.valueOf(state);
-
-        switch (request) {
-            case CURRENT:
-                bookings = bookingRepository.findAllByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(userId,
-                        currentTime, currentTime, pageRequest);
-                break;
-            case PAST:
-                bookings = bookingRepository.findAllByItemOwnerIdAndEndBeforeOrderByStartDesc(userId, currentTime,
-                        pageRequest);
-                break;
-            case FUTURE:
-                bookings = bookingRepository.findAllByItemOwnerIdAndStartAfterOrderByStartDesc(userId, currentTime,
-                        pageRequest);
-                break;
-            case WAITING:
-                bookings = bookingRepository.findAllByItemOwnerIdAndStatusOrderByStartDesc(userId, Status.WAITING,
-                        pageRequest);
-                break;
-            case REJECTED:
-                bookings = bookingRepository.findAllByItemOwnerIdAndStatusOrderByStartDesc(userId, Status.REJECTED,
-                        pageRequest);
-                break;
-            default:
-                bookings = bookingRepository.findAllByItemOwnerIdOrderByStartDesc(userId, pageRequest);
+    private String eTag(Long userId, String state) {
+        ListsVersion version = userService.getListsVersion(userId);
+        return ListsVersion.eTag(State.valueOf(state), version.getVersion(), version.getNextChange());
+    }
+
+    /**
+     * Ближайший момент, когда бронирование перейдет в другое состояние по времени.
+     */
+    private static LocalDateTime nextChange(Booking booking) {
+        LocalDateTime now = LocalDateTime.now();
+        if (booking.getStart().isAfter(now)) {
+            return booking.getStart();
         }
+        return booking.getEnd().isAfter(now) ? booking.getEnd() : null;
+    }
 
-        log.info("Получение списка бронирований владельца по id - {} со статусом - {} : {}",
-                userId, state, bookings);
+    /**
+     * Подтвержденные бронирования одной вещи не пересекаются, поэтому достаточно проверить только
+     * последнее из них, начавшееся раньше конца нового интервала: если оно закончилось до его начала,
+     * то и все более ранние тоже. Подтверждения вещи идут по очереди под блокировкой ее строки, а в PostgreSQL
+     * пересечение подтвержденных запрещает еще и ограничение EX_BOOKINGS_ITEM_APPROVED.
+     * bookingId - подтверждаемое бронирование, null при создании.
+     */
+    private void checkNoApprovedOverlap(Long itemId, LocalDateTime start, LocalDateTime end, Long bookingId) {
+        Booking latest = bookingId == null
+                ? bookingRepository.findFirstByItemIdAndStatusAndStartBeforeOrderByStartDesc(itemId,
+                        Status.APPROVED, end)
+                : bookingRepository.findFirstByItemIdAndStatusAndStartBeforeAndIdNotOrderByStartDesc(itemId,
+                        Status.APPROVED, end, bookingId);
+
+        if (latest != null && latest.getEnd().isAfter(start)) {
+            throw new BookingOverlapException("Вещь с id - " + itemId + " уже забронирована с " +
+                    latest.getStart() + " по " + latest.getEnd());
+        }
+    }
 
-        return bookings.stream()
-                .map(BookingMapper::toBookingOutputDto)
-                .collect(Collectors.toList());
+    private void checkOwnerHasItems(Long userId) {
+        userService.checkUserIfExists(userId);
+        if (itemService.getFirstByUserId(userId) == null) {
+            throw new NotAvailableException("У пользователя по id - " + userId + " нет вещей");
+        }
     }
 
     private Booking returnBookingIfExists(Long bookingId) {
-        return bookingRepository.findById(bookingId)
+        return bookingRepository.findWithItemAndBookerById(bookingId)
                 .orElseThrow(() -> new NotFoundException("Бронирование по id - " + bookingId + " не найдено"));
     }
 }
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.etag;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Версия списков пользователя и ближайший момент, когда они меняются без записи: начало или конец
+ * одного из его бронирований. ETag строится из обоих полей.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class ListsVersion {
+
+    private final long version;
+    private final LocalDateTime nextChange;
+
+    /**
+     * Сохраненный момент изменения прошел, и следующий нужно найти по бронированиям.
+     */
+    public boolean isOutdatedAt(LocalDateTime now) {
+        return nextChange != null && !nextChange.isAfter(now);
+    }
+
+    /**
+     * Слабый ETag из версий и параметров запроса.
+     */
+    public static String eTag(Object... parts) {
+        return "W/\"" + DigestUtils.md5DigestAsHex(Arrays.deepToString(parts).getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
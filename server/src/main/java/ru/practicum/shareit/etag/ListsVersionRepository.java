@@ -0,0 +1,115 @@
+package ru.practicum.shareit.etag;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Счетчики версий списков для ETag. Обновляются через JDBC: нативный запрос Hibernate сбросил бы
+ * весь кэш второго уровня. Перед обращением к БД сбрасывают в нее изменения текущей сессии.
+ */
+@Repository
+public class ListsVersionRepository {
+
+    private static final String REQUESTS = "requests";
+
+    /**
+     * Ближайшее начало или конец бронирования пользователя после момента - как арендатора
+     * (IDX_BOOKINGS_BOOKER_END) и как владельца (IDX_ITEMS_OWNER и IDX_BOOKINGS_ITEM_END).
+     */
+    private static final String NEXT_CHANGE = "SELECT MIN(CASE WHEN b.start_date > ? THEN b.start_date " +
+            "ELSE b.end_date END) FROM (" +
+            "SELECT start_date, end_date FROM bookings WHERE booker_id = ? AND end_date > ? " +
+            "UNION ALL SELECT b.start_date, b.end_date FROM bookings b JOIN items i ON i.id = b.item_id " +
+            "WHERE i.owner_id = ? AND b.end_date > ?) b";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    public ListsVersionRepository(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    public void create(Long userId) {
+        entityManager.flush();
+        jdbcTemplate.update("INSERT INTO user_lists_versions (user_id) VALUES (?)", userId);
+    }
+
+    /**
+     * Пользователь, добавленный в обход сервиса, еще не менял списков - версия 0.
+     */
+    public ListsVersion getByUserId(Long userId) {
+        entityManager.flush();
+        return jdbcTemplate.query("SELECT version, next_change FROM user_lists_versions WHERE user_id = ?",
+                        (rs, rowNum) -> new ListsVersion(rs.getLong(1), rs.getObject(2, LocalDateTime.class)),
+                        userId).stream()
+                .findFirst()
+                .orElse(new ListsVersion(0, null));
+    }
+
+    /**
+     * Только чтение: вызывается при проверке ETag, когда сохраненный момент изменения уже прошел.
+     */
+    public LocalDateTime findNextChange(Long userId, LocalDateTime now) {
+        entityManager.flush();
+        return jdbcTemplate.queryForObject(NEXT_CHANGE, LocalDateTime.class, now, userId, now, userId, now);
+    }
+
+    /**
+     * Увеличивает версии пользователей; change - начало или конец бронирования, с которого их списки
+     * изменятся сами собой, null - не меняет этот момент. Строки обновляются по возрастанию id,
+     * чтобы параллельные транзакции не ждали друг друга по кругу, поэтому все версии одной транзакции
+     * нужно увеличивать одним вызовом.
+     */
+    public void touchUsers(Collection<Long> userIds, LocalDateTime change) {
+        entityManager.flush();
+        for (Long userId : new TreeSet<>(userIds)) {
+            if (change == null) {
+                jdbcTemplate.update("UPDATE user_lists_versions SET version = version + 1 WHERE user_id = ?",
+                        userId);
+            } else {
+                jdbcTemplate.update("UPDATE user_lists_versions SET version = version + 1, next_change = " +
+                        "CASE WHEN next_change IS NULL OR next_change > ? THEN ? ELSE next_change END " +
+                        "WHERE user_id = ?", change, change, userId);
+            }
+        }
+    }
+
+    /**
+     * Вещь выводится в списках бронирований ее арендаторов.
+     */
+    public List<Long> findBookersOfItem(Long itemId) {
+        entityManager.flush();
+        return jdbcTemplate.queryForList("SELECT DISTINCT b.booker_id FROM bookings b WHERE b.item_id = ?",
+                Long.class, itemId);
+    }
+
+    /**
+     * Пользователь выводится в бронированиях и отзывах у владельцев вещей, а его вещи - в бронированиях
+     * арендаторов.
+     */
+    public List<Long> findUsersRelatedTo(Long userId) {
+        entityManager.flush();
+        return jdbcTemplate.queryForList(
+                "SELECT i.owner_id FROM bookings b JOIN items i ON i.id = b.item_id WHERE b.booker_id = ? " +
+                "UNION SELECT i.owner_id FROM comments c JOIN items i ON i.id = c.item_id WHERE c.author_id = ? " +
+                "UNION SELECT b.booker_id FROM bookings b JOIN items i ON i.id = b.item_id WHERE i.owner_id = ?",
+                Long.class, userId, userId, userId);
+    }
+
+    public long getRequestsVersion() {
+        entityManager.flush();
+        return jdbcTemplate.queryForObject("SELECT version FROM list_versions WHERE name = ?", Long.class, REQUESTS);
+    }
+
+    public void touchRequests() {
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE list_versions SET version = version + 1 WHERE name = ?", REQUESTS);
+    }
+}
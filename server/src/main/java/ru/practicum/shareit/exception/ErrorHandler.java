@@ -1,16 +1,26 @@
 package ru.practicum.shareit.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.sql.SQLException;
+
 @Slf4j
 @RestControllerAdvice
 public class ErrorHandler {
 
+    /**
+     * Ограничение из schema-postgresql.sql, PostgreSQL называет его в сообщении в нижнем регистре.
+     */
+    private static final String APPROVED_OVERLAP_CONSTRAINT = "ex_bookings_item_approved";
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleValidation(final MethodArgumentNotValidException e) {
@@ -62,6 +72,37 @@ public class ErrorHandler {
         return new ErrorResponse("error", e.getMessage());
     }
 
+    @ExceptionHandler(BookingOverlapException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse bookingOverlapException(final RuntimeException e) {
+        log.error("Вызвана ошибка пересечения бронирований - {}", e.getMessage());
+        return new ErrorResponse("error", e.getMessage());
+    }
+
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse concurrencyFailureException(final RuntimeException e) {
+        log.error("Вызвана ошибка параллельного изменения - {}", e.getMessage());
+        return new ErrorResponse("error", "Данные изменены параллельным запросом, повторите попытку");
+    }
+
+    /**
+     * Подтверждение, прошедшее проверку пересечений одновременно с другим, отвергает ограничение
+     * EX_BOOKINGS_ITEM_APPROVED - это тот же конфликт, что и BookingOverlapException.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ErrorResponse> dataIntegrityViolationException(final DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && cause.getMessage() != null
+                    && cause.getMessage().contains(APPROVED_OVERLAP_CONSTRAINT)) {
+                log.error("Вызвана ошибка пересечения бронирований - {}", cause.getMessage());
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(new ErrorResponse("error", "Вещь уже забронирована на это время"));
+            }
+        }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(handleServerError(e));
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleServerError(final Throwable e) {
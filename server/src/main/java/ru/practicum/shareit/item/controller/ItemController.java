@@ -1,11 +1,15 @@
 package ru.practicum.shareit.item.controller;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemCursor;
 import ru.practicum.shareit.item.dto.ItemOutputDto;
 import ru.practicum.shareit.item.dto.ItemWithRequestDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.CursorCodec;
 import ru.practicum.shareit.item.dto.ItemDto;
 
 import java.util.List;
@@ -25,10 +29,19 @@ public class ItemController {
     }
 
     @GetMapping
-    public List<ItemOutputDto> getAllByUserId(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
-                                              @RequestParam(defaultValue = "0") Integer from,
-                                              @RequestParam(defaultValue = "10") Integer size) {
-        return itemService.getAllByUserId(userId, from, size);
+    public ResponseEntity<List<ItemOutputDto>> getAllByUserId(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                                                              @RequestParam(defaultValue = "0") Integer from,
+                                                              @RequestParam(defaultValue = "10") Integer size,
+                                                              @RequestParam(required = false) String cursor,
+                                                              WebRequest webRequest) {
+        if (webRequest.checkNotModified(itemService.getAllByUserIdETag(userId))) {
+            return null;
+        }
+        List<ItemOutputDto> items = cursor == null
+                ? itemService.getAllByUserId(userId, from, size)
+                : itemService.getAllByUserIdAfter(userId, cursor, size);
+
+        return CursorCodec.withNextCursor(items, ItemCursor.next(items, size));
     }
 
     @PostMapping
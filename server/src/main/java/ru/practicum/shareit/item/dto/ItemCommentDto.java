@@ -0,0 +1,24 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Комментарий вместе с id вещи - результат JPQL-проекции для группировки комментариев по вещам списка.
+ */
+@Data
+public class ItemCommentDto {
+    private final Long itemId;
+    private final CommentDto comment;
+
+    public ItemCommentDto(Long itemId, Long id, String text, String authorName, LocalDateTime created) {
+        this.itemId = itemId;
+        this.comment = CommentDto.builder()
+                .id(id)
+                .text(text)
+                .authorName(authorName)
+                .created(created)
+                .build();
+    }
+}
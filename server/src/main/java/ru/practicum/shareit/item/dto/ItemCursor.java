@@ -0,0 +1,29 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.pagination.CursorCodec;
+
+import java.util.List;
+
+/**
+ * Позиция в списке вещей владельца, отсортированном по id.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemCursor {
+
+    private final Long id;
+
+    public static ItemCursor decode(String cursor) {
+        return CursorCodec.decode(cursor, parts -> new ItemCursor(Long.parseLong(parts[0])));
+    }
+
+    public static String next(List<ItemOutputDto> items, int size) {
+        return CursorCodec.next(items, size, last -> new ItemCursor(last.getId()).encode());
+    }
+
+    public String encode() {
+        return CursorCodec.encode(id);
+    }
+}
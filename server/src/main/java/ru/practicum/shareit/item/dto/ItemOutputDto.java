@@ -19,6 +19,13 @@ public class ItemOutputDto extends ItemDto {
     private BookingShortDto nextBooking;
     private List<CommentDto> comments;
 
+    /**
+     * Конструктор для JPQL-проекции списка вещей владельца: бронирования и комментарии дополняются отдельно.
+     */
+    public ItemOutputDto(Long id, String name, String description, Boolean available) {
+        super(id, name, description, available);
+    }
+
     public ItemOutputDto(Item item, BookingShortDto lastBooking, BookingShortDto nextBooking) {
         super(item.getId(), item.getName(), item.getDescription(), item.isAvailable());
         this.lastBooking = lastBooking;
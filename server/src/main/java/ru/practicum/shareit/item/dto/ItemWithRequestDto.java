@@ -9,6 +9,11 @@ import ru.practicum.shareit.item.model.Item;
 public class ItemWithRequestDto extends ItemDto {
     private Long requestId;
 
+    public ItemWithRequestDto(Long id, String name, String description, Boolean available, Long requestId) {
+        super(id, name, description, available);
+        this.requestId = requestId;
+    }
+
     public ItemWithRequestDto(Item item, Long requestId) {
         super(item.getId(), item.getName(), item.getDescription(), item.isAvailable());
         this.requestId = requestId;
@@ -0,0 +1,64 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Последнее и ближайшее подтверждённые бронирования вещи. Строка пересчитывается при подтверждении
+ * бронирования и когда наступает начало ближайшего бронирования; нет строки - нет бронирований.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "item_booking_summaries")
+public class ItemBookingSummary {
+
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Column(name = "last_booking_id")
+    private Long lastBookingId;
+
+    @Column(name = "last_booker_id")
+    private Long lastBookerId;
+
+    @Column(name = "last_start_date")
+    private LocalDateTime lastStart;
+
+    @Column(name = "last_end_date")
+    private LocalDateTime lastEnd;
+
+    @Column(name = "next_booking_id")
+    private Long nextBookingId;
+
+    @Column(name = "next_booker_id")
+    private Long nextBookerId;
+
+    @Column(name = "next_start_date")
+    private LocalDateTime nextStart;
+
+    @Column(name = "next_end_date")
+    private LocalDateTime nextEnd;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    /**
+     * Сводка актуальна, пока ближайшее бронирование не началось и ни одно из бронирований
+     * не удалено вместе с арендатором (внешний ключ обнуляет ссылку на него).
+     */
+    public boolean isActualAt(LocalDateTime now) {
+        return (nextStart == null || nextStart.isAfter(now))
+                && (lastBookingId != null || lastStart == null)
+                && (nextBookingId != null || nextStart == null);
+    }
+}
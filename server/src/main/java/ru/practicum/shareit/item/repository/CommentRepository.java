@@ -3,8 +3,10 @@ package ru.practicum.shareit.item.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.item.dto.ItemCommentDto;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,4 +14,8 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     @Query("SELECT c FROM Comment c JOIN FETCH c.author JOIN FETCH c.item WHERE c.item.id = ?1")
     List<Comment> findCommentsByItemIdWithUserAndItem(Long itemId);
+
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemCommentDto(c.item.id, c.id, c.text, a.name, c.created) " +
+            "FROM Comment c JOIN c.author a WHERE c.item.id IN ?1")
+    List<ItemCommentDto> findCommentsByItemIds(Collection<Long> itemIds);
 }
@@ -2,25 +2,56 @@ package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemOutputDto;
+import ru.practicum.shareit.item.dto.ItemWithRequestDto;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
-    List<Item> findByOwnerIdOrderById(Long userId, PageRequest pageRequest);
+    String OUTPUT = "select new ru.practicum.shareit.item.dto.ItemOutputDto(i.id, i.name, i.description, " +
+            "i.available) from Item i ";
+
+    String SEARCH = "select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available) " +
+            "from Item i where i.available = true and (upper(i.name) like upper(concat('%', ?1, '%')) " +
+            "or upper(i.description) like upper(concat('%', ?1, '%'))) ";
+
+    @Query(OUTPUT + "where i.owner.id = ?1 order by i.id")
+    List<ItemOutputDto> findByOwnerIdOrderById(Long userId, PageRequest pageRequest);
+
+    @Query(OUTPUT + "where i.owner.id = ?1 and i.id > ?2 order by i.id")
+    List<ItemOutputDto> findByOwnerIdAndIdGreaterThanOrderById(Long userId, Long id, PageRequest pageRequest);
 
     Item findFirstByOwnerId(Long ownerId);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i where i.id = ?1")
+    Optional<Item> lockById(Long id);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Item> getAllByRequestId(Long requestId);
 
-    @Query("select i from Item i join fetch i.request r")
-    List<Item> getAllWithRequests();
+    @Query("select new ru.practicum.shareit.item.dto.ItemWithRequestDto(i.id, i.name, i.description, " +
+            "i.available, i.request.id) from Item i where i.request.id in ?1")
+    List<ItemWithRequestDto> getAllByRequestIds(Collection<Long> requestIds);
+
+    @Query(SEARCH)
+    List<ItemDto> search(String text, PageRequest pageRequest);
 
-    @Query("select i from Item i where upper(i.name) like upper(concat('%', ?1, '%')) " +
-            "or upper(i.description) like upper(concat('%', ?1, '%')) and i.available = true ")
-    List<Item> search(String text, PageRequest pageRequest);
+    /**
+     * Ранжирование без pg_trgm - для H2: совпадения в названии выше совпадений только в описании.
+     */
+    @Query(SEARCH + "order by case when upper(i.name) like upper(concat('%', ?1, '%')) then 0 else 1 end, i.id")
+    List<ItemDto> searchRanked(String text, PageRequest pageRequest);
 }
@@ -0,0 +1,64 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+
+/**
+ * Поиск на стороне БД: в PostgreSQL подстроку ищут триграммные GiST-индексы из schema-postgresql.sql,
+ * поэтому индекс общий для всех экземпляров сервера и видит вещь сразу после фиксации транзакции.
+ * В H2 нет pg_trgm: там совпадения в названии просто ставятся выше совпадений в описании, запрос просматривает
+ * таблицу. Включается свойством shareit.search.engine=trigram.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "trigram")
+public class TrigramItemSearchEngine implements ItemSearchEngine {
+
+    /**
+     * Сначала совпадения в названии, затем в описании, каждые - по убыванию сходства (similarity) с текстом.
+     * Обе части читают индексы IDX_ITEMS_NAME_TRGM и IDX_ITEMS_DESCRIPTION_TRGM в порядке расстояния {@code <->}
+     * и останавливаются на нужном числе строк, поэтому частое слово не сортирует все свои совпадения.
+     * Вещи с одинаковым сходством идут в порядке индекса.
+     */
+    static final String SEARCH = "SELECT id, name, description, is_available FROM (" +
+            "(SELECT i.id, i.name, i.description, i.is_available, 0 AS part, " +
+            "upper(i.name) <-> upper(?) AS distance FROM items i " +
+            "WHERE i.is_available AND upper(i.name) LIKE '%' || upper(?) || '%' " +
+            "ORDER BY distance LIMIT ?) " +
+            "UNION ALL " +
+            "(SELECT i.id, i.name, i.description, i.is_available, 1, upper(i.description) <-> upper(?) FROM items i " +
+            "WHERE i.is_available AND upper(i.description) LIKE '%' || upper(?) || '%' " +
+            "AND upper(i.name) NOT LIKE '%' || upper(?) || '%' " +
+            "ORDER BY 6 LIMIT ?)) ranked " +
+            "ORDER BY part, distance, id LIMIT ? OFFSET ?";
+
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    private final ItemRepository itemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean postgresql;
+
+    public TrigramItemSearchEngine(ItemRepository itemRepository, JdbcTemplate jdbcTemplate) {
+        this.itemRepository = itemRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.postgresql = POSTGRESQL.equals(jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName()));
+    }
+
+    @Override
+    public List<ItemDto> search(String text, PageRequest pageRequest) {
+        if (!postgresql) {
+            return itemRepository.searchRanked(text, pageRequest);
+        }
+        long ranked = pageRequest.getOffset() + pageRequest.getPageSize();
+        return jdbcTemplate.query(SEARCH,
+                (rs, rowNum) -> new ItemDto(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getBoolean(4)),
+                text, text, ranked, text, text, text, ranked, pageRequest.getPageSize(), pageRequest.getOffset());
+    }
+}
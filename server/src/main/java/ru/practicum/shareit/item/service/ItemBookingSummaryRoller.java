@@ -0,0 +1,36 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Периодически сдвигает сводки бронирований: начавшееся ближайшее бронирование становится последним.
+ * До сдвига чтение пересчитывает такие сводки само, так что интервал влияет только на число запросов.
+ */
+@Slf4j
+@Component
+public class ItemBookingSummaryRoller {
+
+    private final ItemService itemService;
+    private final int batchSize;
+
+    public ItemBookingSummaryRoller(ItemService itemService,
+                                    @Value("${shareit.items.booking-summary.batch-size}") int batchSize) {
+        this.itemService = itemService;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.items.booking-summary.roll-interval}")
+    public void roll() {
+        try {
+            while (itemService.rollBookingSummaries(batchSize) == batchSize) {
+                log.debug("Сдвиг сводок бронирований продолжается следующей пачкой");
+            }
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("Сводка бронирований изменена параллельным подтверждением, сдвиг отложен: {}", e.getMessage());
+        }
+    }
+}
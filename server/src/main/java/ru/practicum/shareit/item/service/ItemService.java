@@ -6,13 +6,19 @@ import ru.practicum.shareit.item.dto.ItemOutputDto;
 import ru.practicum.shareit.item.dto.ItemWithRequestDto;
 import ru.practicum.shareit.item.model.Item;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 
 public interface ItemService {
 
     List<ItemOutputDto> getAllByUserId(Long userId, int from, int size);
 
+    List<ItemOutputDto> getAllByUserIdAfter(Long userId, String cursor, int size);
+
+    String getAllByUserIdETag(Long userId);
+
     Item getFirstByUserId(Long userId);
 
     ItemWithRequestDto create(ItemWithRequestDto itemWithRequestDto, Long userId);
@@ -25,10 +31,26 @@ public interface ItemService {
 
     CommentDto createComment(Long userId, Long itemId, CommentDto commentDto);
 
-    List<Item> getAllWithRequests();
+    Map<Long, List<ItemWithRequestDto>> getAllByRequestIds(Collection<Long> requestIds);
 
     List<ItemWithRequestDto> getAllByRequestId(Long requestId);
 
+    /**
+     * Пересчитывает последнее и ближайшее подтверждённые бронирования вещи.
+     */
+    void refreshBookingSummary(Long itemId);
+
+    /**
+     * Блокирует строку вещи в БД до конца текущей транзакции, чтобы подтверждения её бронирований
+     * выполнялись по очереди и на разных экземплярах сервера.
+     */
+    void lockItem(Long itemId);
+
+    /**
+     * Сдвигает сводки вещей, у которых наступило ближайшее бронирование; возвращает их число.
+     */
+    int rollBookingSummaries(int limit);
+
     Item returnItemIfExists(Long itemId);
 
 }
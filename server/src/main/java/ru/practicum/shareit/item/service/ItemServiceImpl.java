@@ -3,25 +3,33 @@ package ru.practicum.shareit.item.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.item.dto.ItemWithRequestDto;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.booking.model.Booking;
-import ru.practicum.shareit.booking.model.BookingMapper;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.etag.ListsVersion;
+import ru.practicum.shareit.etag.ListsVersionRepository;
 import ru.practicum.shareit.exception.IncorrectParameterException;
 import ru.practicum.shareit.exception.NotAvailableException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.NotOwnerException;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemCommentDto;
+import ru.practicum.shareit.item.dto.ItemCursor;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemOutputDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.CommentMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
 import ru.practicum.shareit.item.model.ItemMapper;
 import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemBookingSummaryRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
@@ -32,6 +40,7 @@ import java.util.stream.Collectors;
 
 @Slf4j
 @Service
+@Transactional(readOnly = true)
 public class ItemServiceImpl implements ItemService {
 
     private final ItemRepository itemRepository;
@@ -39,15 +48,23 @@ public class ItemServiceImpl implements ItemService {
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearchEngine itemSearchEngine;
+    private final ItemBookingSummaryRepository bookingSummaryRepository;
+    private final ListsVersionRepository listsVersionRepository;
 
     public ItemServiceImpl(ItemRepository itemRepository, UserService userService,
                            BookingRepository bookingRepository, CommentRepository commentRepository,
-                           ItemRequestRepository itemRequestRepository) {
+                           ItemRequestRepository itemRequestRepository, ItemSearchEngine itemSearchEngine,
+                           ItemBookingSummaryRepository bookingSummaryRepository,
+                           ListsVersionRepository listsVersionRepository) {
         this.itemRepository = itemRepository;
         this.userService = userService;
         this.bookingRepository = bookingRepository;
         this.commentRepository = commentRepository;
         this.itemRequestRepository = itemRequestRepository;
+        this.itemSearchEngine = itemSearchEngine;
+        this.bookingSummaryRepository = bookingSummaryRepository;
+        this.listsVersionRepository = listsVersionRepository;
     }
 
     @Override
@@ -56,43 +73,57 @@ public class ItemServiceImpl implements ItemService {
         userService.checkUserIfExists(userId);
         PageRequest pageRequest = PageRequest.of(from / size, size);
 
-        List<Item> items = itemRepository.findByOwnerIdOrderById(userId, pageRequest);
-
-        List<Booking> bookings = bookingRepository.findAllByItemOwnerId(userId);
+        List<ItemOutputDto> items = withBookingsAndComments(itemRepository.findByOwnerIdOrderById(userId,
+                pageRequest));
 
         log.info("Получение списка вещей пользователя по id - {} : {}", userId, items);
+        return items;
+    }
+
+    @Override
+    public List<ItemOutputDto> getAllByUserIdAfter(Long userId, String cursor, int size) {
 
-        return items.stream()
-                .map(item -> {
-                    List<Booking> itemBookings = bookings.stream()
-                            .filter(booking -> booking.getItem().getId().equals(item.getId()))
-                            .collect(Collectors.toList());
-
-                    Booking lastBooking = itemBookings.stream()
-                            .filter(booking -> booking.getStatus().equals(Status.APPROVED) &&
-                                    booking.getStart().isBefore(LocalDateTime.now()))
-                            .max(Comparator.comparing(Booking::getStart))
-                            .orElse(null);
-
-                    Booking nextBooking = itemBookings.stream()
-                            .filter(booking -> booking.getStatus().equals(Status.APPROVED) &&
-                                    booking.getStart().isAfter(LocalDateTime.now()))
-                            .min(Comparator.comparing(Booking::getStart))
-                            .orElse(null);
-
-                    ItemOutputDto itemOutputDto = new ItemOutputDto(item,
-                            lastBooking == null ? null : BookingMapper.toBookingShortDto(lastBooking),
-                            nextBooking == null ? null : BookingMapper.toBookingShortDto(nextBooking));
-
-                    itemOutputDto.setComments(CommentMapper.toCommentsDto(
-                            commentRepository.findCommentsByItemIdWithUserAndItem(item.getId())));
-
-                    return itemOutputDto;
-                })
+        userService.checkUserIfExists(userId);
+        ItemCursor after = ItemCursor.decode(cursor);
+
+        List<ItemOutputDto> items = withBookingsAndComments(itemRepository
+                .findByOwnerIdAndIdGreaterThanOrderById(userId, after.getId(), PageRequest.of(0, size)));
+
+        log.info("Получение списка вещей пользователя по id - {} после - {} : {}", userId, cursor, items);
+        return items;
+    }
+
+    @Override
+    public String getAllByUserIdETag(Long userId) {
+        ListsVersion version = userService.getListsVersion(userId);
+        return ListsVersion.eTag(version.getVersion(), version.getNextChange());
+    }
+
+    private List<ItemOutputDto> withBookingsAndComments(List<ItemOutputDto> items) {
+        if (items.isEmpty()) {
+            return items;
+        }
+
+        List<Long> itemIds = items.stream()
+                .map(ItemOutputDto::getId)
                 .collect(Collectors.toList());
+
+        Map<Long, ItemBookingSummary> summaries = getBookingSummaries(itemIds);
+        Map<Long, List<CommentDto>> comments = commentRepository.findCommentsByItemIds(itemIds).stream()
+                .collect(Collectors.groupingBy(ItemCommentDto::getItemId,
+                        Collectors.mapping(ItemCommentDto::getComment, Collectors.toList())));
+
+        items.forEach(item -> {
+            ItemBookingSummary summary = summaries.get(item.getId());
+            item.setLastBooking(lastBooking(summary));
+            item.setNextBooking(nextBooking(summary));
+            item.setComments(comments.getOrDefault(item.getId(), new ArrayList<>()));
+        });
+        return items;
     }
 
     @Override
+    @Transactional
     public ItemWithRequestDto create(ItemWithRequestDto itemWithRequestDto, Long userId) {
 
         Item item = ItemMapper.toItem(itemWithRequestDto);
@@ -105,7 +136,9 @@ public class ItemServiceImpl implements ItemService {
         }
 
         log.info("Создание вещи - {}", item);
-        return ItemMapper.toItemWithRequestDto(itemRepository.save(item));
+        item = itemRepository.save(item);
+        touchLists(List.of(userId), item);
+        return ItemMapper.toItemWithRequestDto(item);
     }
 
     @Override
@@ -116,23 +149,9 @@ public class ItemServiceImpl implements ItemService {
         ItemOutputDto itemOutputDto;
 
         if (item.getOwner().getId().equals(userId)) {
-            List<Booking> bookings = bookingRepository.findAllByItemOwnerId(userId);
+            ItemBookingSummary summary = getBookingSummaries(List.of(itemId)).get(itemId);
 
-            Booking lastBooking = bookings.stream()
-                    .filter(booking -> booking.getStatus().equals(Status.APPROVED) &&
-                            booking.getStart().isBefore(LocalDateTime.now()))
-                    .max(Comparator.comparing(Booking::getStart))
-                    .orElse(null);
-
-            Booking nextBooking = bookings.stream()
-                    .filter(booking -> booking.getStatus().equals(Status.APPROVED) &&
-                            booking.getStart().isAfter(LocalDateTime.now()))
-                    .min(Comparator.comparing(Booking::getStart))
-                    .orElse(null);
-
-            itemOutputDto = new ItemOutputDto(item,
-                    lastBooking == null ? null : BookingMapper.toBookingShortDto(lastBooking),
-                    nextBooking == null ? null : BookingMapper.toBookingShortDto(nextBooking));
+            itemOutputDto = new ItemOutputDto(item, lastBooking(summary), nextBooking(summary));
 
         } else {
             itemOutputDto = new ItemOutputDto(item, null, null);
@@ -146,6 +165,7 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
+    @Transactional
     public ItemDto update(ItemDto itemDto, Long userId, Long itemId) {
 
         userService.checkUserIfExists(userId);
@@ -164,6 +184,9 @@ public class ItemServiceImpl implements ItemService {
         }
 
         updatedItem = itemRepository.save(updatedItem);
+        List<Long> users = new ArrayList<>(listsVersionRepository.findBookersOfItem(itemId));
+        users.add(userId);
+        touchLists(users, updatedItem);
         log.info("Обновление вещи по id - {} пользователем - {} : {}", itemId, userId, updatedItem);
         return ItemMapper.toItemDto(updatedItem);
     }
@@ -176,15 +199,14 @@ public class ItemServiceImpl implements ItemService {
             return new ArrayList<>();
         }
 
-        PageRequest pageRequest = PageRequest.of(from, size);
+        PageRequest pageRequest = PageRequest.of(from / size, size);
 
         log.info("Поиск вещи по строке - {}", text);
-        return itemRepository.search(text, pageRequest).stream()
-                .map(ItemMapper::toItemDto)
-                .collect(Collectors.toList());
+        return itemSearchEngine.search(text, pageRequest);
     }
 
     @Override
+    @Transactional
     public CommentDto createComment(Long userId, Long itemId, CommentDto commentDto) {
 
         User author = userService.returnUserIfExists(userId);
@@ -205,12 +227,18 @@ public class ItemServiceImpl implements ItemService {
         comment.setAuthor(author);
 
         log.info("Сооздание комментария - {}", comment);
-        return CommentMapper.toCommentDto(commentRepository.save(comment));
+        comment = commentRepository.save(comment);
+        listsVersionRepository.touchUsers(List.of(item.getOwner().getId()), null);
+        return CommentMapper.toCommentDto(comment);
     }
 
     @Override
-    public List<Item> getAllWithRequests() {
-        return itemRepository.getAllWithRequests();
+    public Map<Long, List<ItemWithRequestDto>> getAllByRequestIds(Collection<Long> requestIds) {
+        if (requestIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return itemRepository.getAllByRequestIds(requestIds).stream()
+                .collect(Collectors.groupingBy(ItemWithRequestDto::getRequestId));
     }
 
     @Override
@@ -220,6 +248,49 @@ public class ItemServiceImpl implements ItemService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional
+    public void refreshBookingSummary(Long itemId) {
+
+        ItemBookingSummary summary = summarize(itemId, LocalDateTime.now());
+        bookingSummaryRepository.findById(itemId)
+                .ifPresent(current -> summary.setVersion(current.getVersion()));
+
+        log.info("Обновление сводки бронирований вещи по id - {} : {}", itemId, summary);
+        bookingSummaryRepository.save(summary);
+    }
+
+    @Override
+    @Transactional
+    public void lockItem(Long itemId) {
+        itemRepository.lockById(itemId)
+                .orElseThrow(() -> new NotFoundException("Вещь по id - " + itemId + " не найдена"));
+    }
+
+    @Override
+    @Transactional
+    public int rollBookingSummaries(int limit) {
+
+        LocalDateTime now = LocalDateTime.now();
+        List<ItemBookingSummary> started = bookingSummaryRepository.findByNextStartLessThanEqualOrderByNextStart(now,
+                PageRequest.of(0, limit));
+        if (started.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, ItemBookingSummary> summaries = summarize(started.stream()
+                .map(ItemBookingSummary::getItemId)
+                .collect(Collectors.toList()), now);
+        for (ItemBookingSummary current : started) {
+            ItemBookingSummary summary = summaries.get(current.getItemId());
+            summary.setVersion(current.getVersion());
+            bookingSummaryRepository.save(summary);
+        }
+
+        log.info("Сдвиг сводок бронирований вещей - {}", started.size());
+        return started.size();
+    }
+
     @Override
     public Item getFirstByUserId(Long userId) {
         return itemRepository.findFirstByOwnerId(userId);
@@ -230,4 +301,106 @@ public class ItemServiceImpl implements ItemService {
         return itemRepository.findById(itemId)
                 .orElseThrow(() -> new NotFoundException("Вещь по id - " + itemId + " не найдена"));
     }
+
+    /**
+     * Сводки бронирований вещей одним запросом по первичному ключу. Устаревшие сводки, если их ещё
+     * не сдвинул планировщик, пересчитываются по бронированиям без записи.
+     */
+    private Map<Long, ItemBookingSummary> getBookingSummaries(List<Long> itemIds) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, ItemBookingSummary> summaries = bookingSummaryRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(ItemBookingSummary::getItemId, summary -> summary));
+
+        List<Long> outdated = summaries.values().stream()
+                .filter(summary -> !summary.isActualAt(now))
+                .map(ItemBookingSummary::getItemId)
+                .collect(Collectors.toList());
+        if (!outdated.isEmpty()) {
+            summaries.putAll(summarize(outdated, now));
+        }
+        return summaries;
+    }
+
+    private Map<Long, ItemBookingSummary> summarize(List<Long> itemIds, LocalDateTime now) {
+        Map<Long, Booking> lastBookings = groupByItemId(
+                bookingRepository.findLastBookingsByItemIds(itemIds, Status.APPROVED, now));
+        Map<Long, Booking> nextBookings = groupByItemId(
+                bookingRepository.findNextBookingsByItemIds(itemIds, Status.APPROVED, now));
+
+        return itemIds.stream()
+                .collect(Collectors.toMap(itemId -> itemId,
+                        itemId -> summary(itemId, lastBookings.get(itemId), nextBookings.get(itemId))));
+    }
+
+    /**
+     * Сводка одной вещи - два просмотра индекса до первой строки вместо пакетного запроса, который
+     * сравнивает с максимумом и минимумом каждое подтвержденное бронирование вещи: сводка обновляется
+     * при каждом подтверждении, и ее цена не должна расти с историей вещи.
+     */
+    private ItemBookingSummary summarize(Long itemId, LocalDateTime now) {
+        return summary(itemId,
+                bookingRepository.findFirstByItemIdAndStatusAndStartBeforeOrderByStartDesc(itemId, Status.APPROVED,
+                        now),
+                bookingRepository.findFirstByItemIdAndStatusAndStartAfterOrderByStartAsc(itemId, Status.APPROVED,
+                        now));
+    }
+
+    private static ItemBookingSummary summary(Long itemId, Booking last, Booking next) {
+        ItemBookingSummary summary = ItemBookingSummary.builder()
+                .itemId(itemId)
+                .build();
+        if (last != null) {
+            summary.setLastBookingId(last.getId());
+            summary.setLastBookerId(last.getBooker().getId());
+            summary.setLastStart(last.getStart());
+            summary.setLastEnd(last.getEnd());
+        }
+        if (next != null) {
+            summary.setNextBookingId(next.getId());
+            summary.setNextBookerId(next.getBooker().getId());
+            summary.setNextStart(next.getStart());
+            summary.setNextEnd(next.getEnd());
+        }
+        return summary;
+    }
+
+    /**
+     * Вещь выводится в списке вещей владельца, а ответ на запрос - еще и в ленте запросов.
+     */
+    private void touchLists(Collection<Long> userIds, Item item) {
+        listsVersionRepository.touchUsers(userIds, null);
+        if (item.getRequest() != null) {
+            listsVersionRepository.touchRequests();
+        }
+    }
+
+    private BookingShortDto lastBooking(ItemBookingSummary summary) {
+        if (summary == null || summary.getLastBookingId() == null) {
+            return null;
+        }
+        return BookingShortDto.builder()
+                .id(summary.getLastBookingId())
+                .bookerId(summary.getLastBookerId())
+                .start(summary.getLastStart())
+                .end(summary.getLastEnd())
+                .build();
+    }
+
+    private BookingShortDto nextBooking(ItemBookingSummary summary) {
+        if (summary == null || summary.getNextBookingId() == null) {
+            return null;
+        }
+        return BookingShortDto.builder()
+                .id(summary.getNextBookingId())
+                .bookerId(summary.getNextBookerId())
+                .start(summary.getNextStart())
+                .end(summary.getNextEnd())
+                .build();
+    }
+
+    private Map<Long, Booking> groupByItemId(List<Booking> bookings) {
+        return bookings.stream()
+                .collect(Collectors.toMap(booking -> booking.getItem().getId(), booking -> booking,
+                        (first, second) -> first.getId() < second.getId() ? first : second));
+    }
 }
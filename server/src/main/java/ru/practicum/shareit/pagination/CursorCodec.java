@@ -0,0 +1,66 @@
+package ru.practicum.shareit.pagination;
+
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.exception.IncorrectParameterException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Общий формат курсоров keyset-пагинации: части позиции последней строки страницы через разделитель,
+ * в Base64 без дополнения. Клиенту курсор передается в заголовке {@code X-Next-Cursor} как непрозрачная строка.
+ */
+public final class CursorCodec {
+
+    public static final String HEADER = "X-Next-Cursor";
+
+    private static final String SEPARATOR = "_";
+
+    private CursorCodec() {
+    }
+
+    public static String encode(Object... parts) {
+        StringBuilder value = new StringBuilder();
+        for (Object part : parts) {
+            if (value.length() > 0) {
+                value.append(SEPARATOR);
+            }
+            value.append(part);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(value.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Любая ошибка разбора - некорректный параметр cursor.
+     */
+    public static <T> T decode(String cursor, Function<String[], T> parser) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return parser.apply(value.split(SEPARATOR, -1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IncorrectParameterException("cursor");
+        }
+    }
+
+    /**
+     * Курсор следующей страницы или null, если страница неполная и дальше строк нет.
+     */
+    public static <T> String next(List<T> page, int size, Function<T, String> cursorOf) {
+        if (page.size() < size) {
+            return null;
+        }
+        return cursorOf.apply(page.get(page.size() - 1));
+    }
+
+    public static <T> ResponseEntity<List<T>> withNextCursor(List<T> page, String next) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (next != null) {
+            response.header(HEADER, next);
+        }
+        return response.body(page);
+    }
+}
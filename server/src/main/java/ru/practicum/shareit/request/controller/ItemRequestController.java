@@ -1,9 +1,13 @@
 package ru.practicum.shareit.request.controller;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.pagination.CursorCodec;
 
 import java.util.List;
 
@@ -40,9 +44,18 @@ public class ItemRequestController {
     }
 
     @GetMapping("/all")
-    public List<ItemRequestDto> getAllRequests(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
-                                               @RequestParam(defaultValue = "0") Integer from,
-                                               @RequestParam(defaultValue = "10") Integer size) {
-        return itemRequestService.getAllRequests(from, size, userId);
+    public ResponseEntity<List<ItemRequestDto>> getAllRequests(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                                                               @RequestParam(defaultValue = "0") Integer from,
+                                                               @RequestParam(defaultValue = "10") Integer size,
+                                                               @RequestParam(required = false) String cursor,
+                                                               WebRequest webRequest) {
+        if (webRequest.checkNotModified(itemRequestService.getAllRequestsETag(userId))) {
+            return null;
+        }
+        List<ItemRequestDto> requests = cursor == null
+                ? itemRequestService.getAllRequests(from, size, userId)
+                : itemRequestService.getAllRequestsAfter(cursor, size, userId);
+
+        return CursorCodec.withNextCursor(requests, ItemRequestCursor.next(requests, size));
     }
 }
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.pagination.CursorCodec;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Позиция в ленте запросов, отсортированной по (created, id) по убыванию.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemRequestCursor {
+
+    private final LocalDateTime created;
+    private final Long id;
+
+    public static ItemRequestCursor decode(String cursor) {
+        return CursorCodec.decode(cursor, parts -> new ItemRequestCursor(LocalDateTime.parse(parts[0]),
+                Long.parseLong(parts[1])));
+    }
+
+    public static String next(List<ItemRequestDto> requests, int size) {
+        return CursorCodec.next(requests, size, last -> new ItemRequestCursor(last.getCreated(), last.getId())
+                .encode());
+    }
+
+    public String encode() {
+        return CursorCodec.encode(created, id);
+    }
+}
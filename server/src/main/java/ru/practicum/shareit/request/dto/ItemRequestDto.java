@@ -1,7 +1,9 @@
 package ru.practicum.shareit.request.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import ru.practicum.shareit.item.dto.ItemWithRequestDto;
 
 import javax.validation.constraints.NotBlank;
@@ -14,10 +16,19 @@ import java.util.List;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class ItemRequestDto {
     private Long id;
     @NotBlank
     private String description;
     private LocalDateTime created;
     private List<ItemWithRequestDto> items;
+
+    /**
+     * Конструктор для JPQL-проекции списков запросов: вещи-ответы дополняются отдельно.
+     */
+    public ItemRequestDto(Long id, String description, LocalDateTime created) {
+        this(id, description, created, null);
+    }
 }
@@ -2,12 +2,28 @@ package ru.practicum.shareit.request.repository;
 
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
-    List<ItemRequest> findAllByRequestorIdOrderByCreatedDesc(Long requestorId);
 
-    List<ItemRequest> findAllByRequestorIdIsNot(Long requestorId, PageRequest pageRequest);
+    String OUTPUT = "select new ru.practicum.shareit.request.dto.ItemRequestDto(r.id, r.description, r.created) " +
+            "from ItemRequest r ";
+
+    @Query(OUTPUT + "where r.requestor.id = ?1 order by r.created desc")
+    List<ItemRequestDto> findAllByRequestorIdOrderByCreatedDesc(Long requestorId);
+
+    @Query(OUTPUT + "where r.requestor.id <> ?1")
+    List<ItemRequestDto> findAllByRequestorIdIsNot(Long requestorId, PageRequest pageRequest);
+
+
+    @Query(OUTPUT + "where r.requestor.id <> ?1 " +
+            "and (r.created < ?2 or (r.created = ?2 and r.id < ?3)) " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequestDto> findAllByRequestorIdIsNotAfter(Long requestorId, LocalDateTime created, Long id,
+                                                        PageRequest pageRequest);
 }
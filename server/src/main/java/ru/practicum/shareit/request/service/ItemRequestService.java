@@ -12,4 +12,8 @@ public interface ItemRequestService {
     ItemRequestDto getRequestById(Long userId, Long requestId);
 
     List<ItemRequestDto> getAllRequests(int from, int size, Long userId);
+
+    List<ItemRequestDto> getAllRequestsAfter(String cursor, int size, Long userId);
+
+    String getAllRequestsETag(Long userId);
 }
@@ -2,11 +2,15 @@ package ru.practicum.shareit.request.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.etag.ListsVersion;
+import ru.practicum.shareit.etag.ListsVersionRepository;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemWithRequestDto;
-import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.model.ItemRequestMapper;
@@ -16,23 +20,30 @@ import ru.practicum.shareit.user.service.UserService;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
+@Transactional(readOnly = true)
 public class ItemRequestServiceImpl implements ItemRequestService {
 
+    private static final Sort FEED_ORDER = Sort.by(Sort.Direction.DESC, "created", "id");
+
     private final ItemRequestRepository itemRequestRepository;
     private final UserService userService;
     private final ItemService itemService;
+    private final ListsVersionRepository listsVersionRepository;
 
     public ItemRequestServiceImpl(ItemRequestRepository itemRequestRepository, UserService userService,
-                                  ItemService itemService) {
+                                  ItemService itemService, ListsVersionRepository listsVersionRepository) {
         this.itemRequestRepository = itemRequestRepository;
         this.userService = userService;
         this.itemService = itemService;
+        this.listsVersionRepository = listsVersionRepository;
     }
 
+    @Transactional
     public ItemRequestDto create(Long userId, ItemRequestDto itemRequestDto) {
 
         User requestor = userService.returnUserIfExists(userId);
@@ -40,27 +51,16 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         itemRequest.setRequestor(requestor);
 
         log.info("Создание запроса - {}", itemRequest);
-        return ItemRequestMapper.toItemRequestDto(itemRequestRepository.save(itemRequest));
+        itemRequest = itemRequestRepository.save(itemRequest);
+        listsVersionRepository.touchRequests();
+        return ItemRequestMapper.toItemRequestDto(itemRequest);
     }
 
     public List<ItemRequestDto> getRequests(Long userId) {
 
         userService.checkUserIfExists(userId);
-        List<ItemRequest> itemRequests = itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(userId);
-        List<Item> items = itemService.getAllWithRequests();
-
-        return itemRequests.stream()
-                .map(itemRequest -> {
-                    List<ItemWithRequestDto> itemWithRequests = items.stream()
-                            .filter(item -> item.getRequest().getId().equals(itemRequest.getId()))
-                            .map(item -> new ItemWithRequestDto(item, itemRequest.getId()))
-                            .collect(Collectors.toList());
-
-                    ItemRequestDto itemRequestDto = ItemRequestMapper.toItemRequestDto(itemRequest);
-                    itemRequestDto.setItems(itemWithRequests);
-                    return itemRequestDto;
-                })
-                .collect(Collectors.toList());
+
+        return withItems(itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(userId));
     }
 
     @Override
@@ -79,16 +79,38 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     public List<ItemRequestDto> getAllRequests(int from, int size, Long userId) {
         userService.checkUserIfExists(userId);
 
-        PageRequest pageRequest = PageRequest.of(from / size, size);
+        PageRequest pageRequest = PageRequest.of(from / size, size, FEED_ORDER);
+
+        log.info("Получение запросов со страницы - {} количеством - {} пользователем - {}", from, size, userId);
+        return withItems(itemRequestRepository.findAllByRequestorIdIsNot(userId, pageRequest));
+    }
+
+    @Override
+    public List<ItemRequestDto> getAllRequestsAfter(String cursor, int size, Long userId) {
+        userService.checkUserIfExists(userId);
+
+        ItemRequestCursor after = ItemRequestCursor.decode(cursor);
+
+        log.info("Получение запросов после - {} количеством - {} пользователем - {}", cursor, size, userId);
+        return withItems(itemRequestRepository.findAllByRequestorIdIsNotAfter(userId, after.getCreated(),
+                after.getId(), PageRequest.of(0, size)));
+    }
+
+    @Override
+    public String getAllRequestsETag(Long userId) {
+        userService.checkUserIfExists(userId);
+
+        return ListsVersion.eTag(userId, listsVersionRepository.getRequestsVersion());
+    }
+
+    private List<ItemRequestDto> withItems(List<ItemRequestDto> itemRequestDtos) {
+        Map<Long, List<ItemWithRequestDto>> items = itemService.getAllByRequestIds(itemRequestDtos.stream()
+                .map(ItemRequestDto::getId)
+                .collect(Collectors.toList()));
 
-        return itemRequestRepository.findAllByRequestorIdIsNot(userId, pageRequest)
-                .stream()
-                .map(ItemRequestMapper::toItemRequestDto)
-                .peek(itemRequestDto -> {
-                    List<ItemWithRequestDto> itemWithRequestDtos = itemService.getAllByRequestId(itemRequestDto.getId());
-                    itemRequestDto.setItems(itemWithRequestDtos);
-                })
-                .collect(Collectors.toList());
+        itemRequestDtos.forEach(itemRequestDto ->
+                itemRequestDto.setItems(items.getOrDefault(itemRequestDto.getId(), new ArrayList<>())));
+        return itemRequestDtos;
     }
 
     private ItemRequest returnItemRequestIfExists(Long requestId) {
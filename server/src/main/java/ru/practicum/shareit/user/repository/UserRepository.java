@@ -1,12 +1,23 @@
 package ru.practicum.shareit.user.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.List;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
     User findByEmail(String email);
 
+    /**
+     * Вещи, которые БД удалит каскадом вместе с пользователем: его собственные и ответы на его запросы.
+     */
+    @Query("select i.id from Item i left join i.request r where i.owner.id = ?1 or r.requestor.id = ?1")
+    List<Long> findItemIdsDeletedWithUser(Long userId);
+
+    @Query("select r.id from ItemRequest r where r.requestor.id = ?1")
+    List<Long> findRequestIdsByRequestorId(Long userId);
 }
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.user.service;
 
+import ru.practicum.shareit.etag.ListsVersion;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 
@@ -20,4 +21,10 @@ public interface UserService {
     User returnUserIfExists(Long userId);
 
     void checkUserIfExists(Long userId);
+
+    /**
+     * Версия списков пользователя для ETag и ближайший момент, когда начнется или закончится одно из его
+     * бронирований. Ничего не записывает.
+     */
+    ListsVersion getListsVersion(Long userId);
 }
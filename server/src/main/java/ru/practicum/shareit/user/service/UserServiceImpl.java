@@ -1,25 +1,74 @@
 package ru.practicum.shareit.user.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.etag.ListsVersion;
+import ru.practicum.shareit.etag.ListsVersionRepository;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.UniqueViolatedException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.model.UserMapper;
 
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+/**
+ * Известные пользователи кэшируются с ограничением по времени жизни и размеру,
+ * чтобы проверка заголовка X-Sharer-User-Id не требовала запроса к БД на каждый вызов.
+ * Наружу отдаются только копии, поэтому изменения вызывающей стороны не попадают в кэш.
+ */
 @Slf4j
 @Service
-public class UserServiceImpl implements UserService {
+@Transactional(readOnly = true)
+public class UserServiceImpl implements UserService, MeterBinder {
+
+    private static final String CACHE_NAME = "users";
 
     private final UserRepository userRepository;
+    private final ListsVersionRepository listsVersionRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Cache<Long, User> users;
+    private final Cache<Long, Map.Entry<ListsVersion, ListsVersion>> listsVersions;
 
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, ListsVersionRepository listsVersionRepository,
+                           EntityManagerFactory entityManagerFactory,
+                           @Value("${shareit.users.cache.ttl:PT1M}") Duration ttl,
+                           @Value("${shareit.users.cache.max-size:10000}") long maxSize) {
         this.userRepository = userRepository;
+        this.listsVersionRepository = listsVersionRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        this.users = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.listsVersions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, users, CACHE_NAME);
     }
 
     @Override
@@ -30,9 +79,11 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public UserDto create(UserDto userDto) {
         User user = UserMapper.toUser(userDto);
         user = userRepository.save(user);
+        listsVersionRepository.create(user.getId());
         log.info("Создание пользователя - {}", user);
         return UserMapper.toUserDto(user);
     }
@@ -45,9 +96,11 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public UserDto update(UserDto userDto, Long userId) {
         User user = UserMapper.toUser(userDto);
-        User replasedUser = returnUserIfExists(userId);
+        User replasedUser = userRepository.findById(userId)
+                .orElseThrow(() -> userNotFound(userId));
 
         if (user.getEmail() != null) {
             if (checkAlreadyRegisteredUser(user.getEmail()) &&
@@ -60,32 +113,111 @@ public class UserServiceImpl implements UserService {
             replasedUser.setName(user.getName());
         }
         user = userRepository.save(replasedUser);
+        List<Long> related = new ArrayList<>(listsVersionRepository.findUsersRelatedTo(userId));
+        related.add(userId);
+        listsVersionRepository.touchUsers(related, null);
+        afterCompletion(() -> users.invalidate(userId));
         log.info("Обновление пользователя по id - {} {}", userId, user);
         return UserMapper.toUserDto(user);
     }
 
     @Override
+    @Transactional
     public void delete(Long userId) {
         log.info("Удаление пользователя по id - {}", userId);
+        // каскадное удаление в БД убирает его бронирования, отзывы, вещи и запросы из чужих списков
+        listsVersionRepository.touchUsers(listsVersionRepository.findUsersRelatedTo(userId), null);
+        listsVersionRepository.touchRequests();
+        List<Long> itemIds = userRepository.findItemIdsDeletedWithUser(userId);
+        List<Long> requestIds = userRepository.findRequestIdsByRequestorId(userId);
         userRepository.deleteById(userId);
+        afterCompletion(() -> {
+            users.invalidate(userId);
+            evictDeletedWithUser(itemIds, requestIds);
+        });
     }
 
+    /**
+     * Всегда снимок вне контекста персистентности, будь он в кэше или нет: годится как ссылка для новых
+     * вещей, бронирований и запросов, но не для изменения - update загружает пользователя из репозитория.
+     */
     @Override
     public User returnUserIfExists(Long userId) {
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь по id - " + userId + " не найден"));
+        User user = users.get(userId, id -> userRepository.findById(id)
+                .map(UserServiceImpl::copyOf)
+                .orElseThrow(() -> userNotFound(id)));
+        return copyOf(user);
     }
 
     @Override
     public void checkUserIfExists(Long userId) {
-        boolean exists = userRepository.existsById(userId);
-        if (!exists) {
-            throw new NotFoundException("Пользователь по id - " + userId + " не найден");
+        returnUserIfExists(userId);
+    }
+
+    /**
+     * Проверка ETag ничего не пишет: если сохраненный момент изменения прошел, следующий находится запросом
+     * и запоминается до очередного изменения версии или до своего наступления.
+     */
+    @Override
+    public ListsVersion getListsVersion(Long userId) {
+        checkUserIfExists(userId);
+
+        ListsVersion version = listsVersionRepository.getByUserId(userId);
+        LocalDateTime now = LocalDateTime.now();
+        if (!version.isOutdatedAt(now)) {
+            return version;
         }
+        Map.Entry<ListsVersion, ListsVersion> found = listsVersions.getIfPresent(userId);
+        if (found != null && found.getKey().equals(version) && !found.getValue().isOutdatedAt(now)) {
+            return found.getValue();
+        }
+        ListsVersion actual = new ListsVersion(version.getVersion(),
+                listsVersionRepository.findNextChange(userId, now));
+        listsVersions.put(userId, new AbstractMap.SimpleImmutableEntry<>(version, actual));
+        return actual;
     }
 
     private boolean checkAlreadyRegisteredUser(String email) {
         User user = userRepository.findByEmail(email);
         return user != null;
     }
+
+    /**
+     * Сброс после фиксации, иначе параллельный запрос успеет положить в кэш еще не измененного пользователя.
+     */
+    private void afterCompletion(Runnable invalidate) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                invalidate.run();
+            }
+        });
+    }
+
+    /**
+     * Вещи и запросы удаляются каскадом в БД, мимо Hibernate, поэтому их записи в кэше второго уровня
+     * (профиль l2cache) и закэшированные запросы по ним сбрасываются явно.
+     */
+    private void evictDeletedWithUser(List<Long> itemIds, List<Long> requestIds) {
+        javax.persistence.Cache cache = entityManagerFactory.getCache();
+        itemIds.forEach(id -> cache.evict(Item.class, id));
+        requestIds.forEach(id -> cache.evict(ItemRequest.class, id));
+        cache.unwrap(org.hibernate.Cache.class).evictQueryRegions();
+    }
+
+    private static NotFoundException userNotFound(Long userId) {
+        return new NotFoundException("Пользователь по id - " + userId + " не найден");
+    }
+
+    private static User copyOf(User user) {
+        return User.builder()
+                .id(user.getId())
+                .name(user.getName())
+                .email(user.getEmail())
+                .build();
+    }
 }
@@ -0,0 +1,16 @@
+-- выполняется после schema.sql только в PostgreSQL (spring.sql.init.platform)
+
+-- триграммные GiST-индексы для поиска вещей по подстроке: upper(...) LIKE '%текст%' находит строки
+-- по индексу, без просмотра всей таблицы, а TrigramItemSearchEngine читает их в порядке сходства с текстом
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS IDX_ITEMS_NAME_TRGM ON items USING gist (upper(name) gist_trgm_ops);
+CREATE INDEX IF NOT EXISTS IDX_ITEMS_DESCRIPTION_TRGM ON items USING gist (upper(description) gist_trgm_ops);
+
+-- подтвержденные бронирования одной вещи не пересекаются: проверка в BookingServiceImpl смотрит только последнее
+-- из них, начавшееся до конца нового интервала, - просмотр индекса до первой строки вместо всей истории вещи
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE bookings DROP CONSTRAINT IF EXISTS EX_BOOKINGS_ITEM_APPROVED;
+ALTER TABLE bookings ADD CONSTRAINT EX_BOOKINGS_ITEM_APPROVED
+  EXCLUDE USING gist (item_id WITH =, tsrange(start_date, end_date) WITH &&) WHERE (status = 'APPROVED');
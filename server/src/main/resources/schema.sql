@@ -1,21 +1,35 @@
-DROP TABLE IF EXISTS users, items, requests, bookings, comments CASCADE;
+DROP TABLE IF EXISTS users, items, requests, bookings, comments, item_booking_summaries, list_versions,
+  user_lists_versions CASCADE;
+DROP SEQUENCE IF EXISTS users_seq;
+DROP SEQUENCE IF EXISTS requests_seq;
+DROP SEQUENCE IF EXISTS items_seq;
+DROP SEQUENCE IF EXISTS bookings_seq;
+DROP SEQUENCE IF EXISTS comments_seq;
+
+-- шаг 50 совпадает с allocationSize в @SequenceGenerator: Hibernate выдает id пачкой из памяти (pooled),
+-- а строкам, вставленным в обход Hibernate, значение по умолчанию берется из той же последовательности
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS requests_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS comments_seq START WITH 1 INCREMENT BY 50;
 
 CREATE TABLE IF NOT EXISTS users (
-  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id BIGINT DEFAULT nextval('users_seq') PRIMARY KEY,
   name VARCHAR(100) NOT NULL,
   email VARCHAR(255) NOT NULL,
   CONSTRAINT UQ_USER_EMAIL UNIQUE (email)
 );
 
 CREATE TABLE IF NOT EXISTS requests (
-  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id BIGINT DEFAULT nextval('requests_seq') PRIMARY KEY,
   description VARCHAR(1000) NOT NULL,
   requestor_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
   created TIMESTAMP WITHOUT TIME ZONE NOT NULL
 );
 
 CREATE TABLE IF NOT EXISTS items (
-  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id BIGINT DEFAULT nextval('items_seq') PRIMARY KEY,
   name VARCHAR(100) NOT NULL,
   description VARCHAR(255) NOT NULL,
   is_available BOOLEAN NOT NULL,
@@ -24,18 +38,59 @@ CREATE TABLE IF NOT EXISTS items (
 );
 
 CREATE TABLE IF NOT EXISTS bookings (
-  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id BIGINT DEFAULT nextval('bookings_seq') PRIMARY KEY,
   start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
   end_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
   item_id BIGINT NOT NULL REFERENCES items(id) ON DELETE CASCADE,
   booker_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
-  status VARCHAR(25) NOT NULL
+  status VARCHAR(25) NOT NULL,
+  version BIGINT NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS comments (
-  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id BIGINT DEFAULT nextval('comments_seq') PRIMARY KEY,
   text VARCHAR(1000) NOT NULL,
   item_id BIGINT NOT NULL REFERENCES items(id) ON DELETE CASCADE,
   author_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
   created TIMESTAMP WITHOUT TIME ZONE NOT NULL
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS item_booking_summaries (
+  item_id BIGINT PRIMARY KEY REFERENCES items(id) ON DELETE CASCADE,
+  last_booking_id BIGINT REFERENCES bookings(id) ON DELETE SET NULL,
+  last_booker_id BIGINT,
+  last_start_date TIMESTAMP WITHOUT TIME ZONE,
+  last_end_date TIMESTAMP WITHOUT TIME ZONE,
+  next_booking_id BIGINT REFERENCES bookings(id) ON DELETE SET NULL,
+  next_booker_id BIGINT,
+  next_start_date TIMESTAMP WITHOUT TIME ZONE,
+  next_end_date TIMESTAMP WITHOUT TIME ZONE,
+  version BIGINT NOT NULL DEFAULT 0
+);
+
+-- версия списков пользователя для ETag и момент, не позже которого они изменятся сами собой;
+-- отдельно от users, чтобы запись бронирований не блокировала строку пользователя
+CREATE TABLE IF NOT EXISTS user_lists_versions (
+  user_id BIGINT PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+  version BIGINT NOT NULL DEFAULT 0,
+  next_change TIMESTAMP WITHOUT TIME ZONE
+);
+
+-- версии общих списков, не привязанных к пользователю
+CREATE TABLE IF NOT EXISTS list_versions (
+  name VARCHAR(50) PRIMARY KEY,
+  version BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO list_versions (name) VALUES ('requests');
+
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_BOOKER_START ON bookings (booker_id, start_date DESC);
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_ITEM_STATUS_START ON bookings (item_id, status, start_date);
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_BOOKER_END ON bookings (booker_id, end_date);
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_ITEM_END ON bookings (item_id, end_date);
+CREATE INDEX IF NOT EXISTS IDX_ITEMS_OWNER ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS IDX_ITEMS_REQUEST ON items (request_id);
+CREATE INDEX IF NOT EXISTS IDX_REQUESTS_REQUESTOR_CREATED ON requests (requestor_id, created DESC);
+CREATE INDEX IF NOT EXISTS IDX_COMMENTS_ITEM ON comments (item_id);
+CREATE INDEX IF NOT EXISTS IDX_REQUESTS_CREATED ON requests (created DESC, id DESC);
+CREATE INDEX IF NOT EXISTS IDX_ITEM_BOOKING_SUMMARIES_NEXT_START ON item_booking_summaries (next_start_date);
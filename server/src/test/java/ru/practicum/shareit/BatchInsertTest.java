@@ -0,0 +1,113 @@
+package ru.practicum.shareit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * id берутся из последовательностей пачками, поэтому вставки уходят в БД пакетами JDBC.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BatchInsertTest {
+
+    private static final int BOOKINGS = 100;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void shouldInsertBookingsInBatches() {
+        User user = userRepository.save(User.builder()
+                .name("User")
+                .email("user@email.ru")
+                .build());
+        Item item = itemRepository.save(Item.builder()
+                .name("Вещь")
+                .description("Простая вещь")
+                .available(true)
+                .owner(user)
+                .build());
+        entityManager.flush();
+
+        LocalDateTime start = LocalDateTime.now();
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            bookings.add(Booking.builder()
+                    .item(item)
+                    .booker(user)
+                    .start(start.plusDays(i))
+                    .end(start.plusDays(i).plusHours(1))
+                    .status(Status.WAITING)
+                    .build());
+        }
+        statistics.clear();
+
+        bookingRepository.saveAll(bookings);
+        entityManager.flush();
+
+        assertEquals(BOOKINGS, bookings.stream().map(Booking::getId).distinct().count());
+        // две выборки из последовательности по 50 id и два пакета INSERT
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldNotReuseIdsOfRowsInsertedWithoutHibernate() {
+        jdbcTemplate.update("INSERT INTO users (name, email) VALUES (?, ?)", "Seeded", "seeded@email.ru");
+        Long seededId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class,
+                "seeded@email.ru");
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            users.add(User.builder()
+                    .name("User " + i)
+                    .email("user" + i + "@email.ru")
+                    .build());
+        }
+        userRepository.saveAll(users);
+        entityManager.flush();
+
+        assertEquals(61, userRepository.count());
+        assertEquals(0, users.stream().filter(user -> user.getId().equals(seededId)).count());
+    }
+}
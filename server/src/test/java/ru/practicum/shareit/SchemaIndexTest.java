@@ -0,0 +1,59 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=none")
+class SchemaIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldCreateBookerIndex() {
+        assertEquals(List.of("BOOKER_ID ASC", "START_DATE DESC"), indexColumns("IDX_BOOKINGS_BOOKER_START"));
+    }
+
+    @Test
+    void shouldCreateItemStatusIndex() {
+        assertEquals(List.of("ITEM_ID ASC", "STATUS ASC", "START_DATE ASC"),
+                indexColumns("IDX_BOOKINGS_ITEM_STATUS_START"));
+    }
+
+    @Test
+    void shouldCreateOwnerIndex() {
+        assertEquals(List.of("OWNER_ID ASC", "ID ASC"), indexColumns("IDX_ITEMS_OWNER"));
+    }
+
+    @Test
+    void shouldCreateRequestIndex() {
+        assertEquals(List.of("REQUEST_ID ASC"), indexColumns("IDX_ITEMS_REQUEST"));
+    }
+
+    @Test
+    void shouldCreateRequestorIndex() {
+        assertEquals(List.of("REQUESTOR_ID ASC", "CREATED DESC"), indexColumns("IDX_REQUESTS_REQUESTOR_CREATED"));
+    }
+
+    @Test
+    void shouldCreateRequestFeedIndex() {
+        assertEquals(List.of("CREATED DESC", "ID DESC"), indexColumns("IDX_REQUESTS_CREATED"));
+    }
+
+    @Test
+    void shouldCreateCommentItemIndex() {
+        assertEquals(List.of("ITEM_ID ASC"), indexColumns("IDX_COMMENTS_ITEM"));
+    }
+
+    private List<String> indexColumns(String index) {
+        return jdbcTemplate.queryForList("SELECT COLUMN_NAME || ' ' || ORDERING_SPECIFICATION " +
+                "FROM INFORMATION_SCHEMA.INDEX_COLUMNS WHERE INDEX_NAME = ? ORDER BY ORDINAL_POSITION",
+                String.class, index);
+    }
+}
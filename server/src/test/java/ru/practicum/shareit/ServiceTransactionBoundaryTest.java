@@ -0,0 +1,130 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingOutputDto;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.etag.ListsVersionRepository;
+import ru.practicum.shareit.item.dto.ItemOutputDto;
+import ru.practicum.shareit.item.dto.ItemWithRequestDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.LikeItemSearchEngine;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.service.UserServiceImpl;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Тесты выполняются без транзакции и без open-in-view: ленивые связи должны
+ * загружаться внутри транзакций сервисов, до возврата DTO.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BookingServiceImpl.class, ItemServiceImpl.class, UserServiceImpl.class, LikeItemSearchEngine.class,
+        ListsVersionRepository.class})
+class ServiceTransactionBoundaryTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private UserDto owner;
+    private UserDto booker;
+    private ItemWithRequestDto item;
+
+    @BeforeEach
+    void setUp() {
+        owner = userService.create(UserDto.builder()
+                .name("Owner")
+                .email("owner@email.ru")
+                .build());
+        booker = userService.create(UserDto.builder()
+                .name("Booker")
+                .email("booker@email.ru")
+                .build());
+
+        ItemWithRequestDto itemDto = new ItemWithRequestDto();
+        itemDto.setName("Дрель");
+        itemDto.setDescription("Простая дрель");
+        itemDto.setAvailable(true);
+        item = itemService.create(itemDto, owner.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAll();
+        itemRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void shouldMapLazyAssociationsInsideServiceTransaction() {
+        BookingOutputDto created = bookingService.create(BookingDto.builder()
+                .itemId(item.getId())
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .build(), booker.getId());
+
+        BookingOutputDto booking = bookingService.getBooking(owner.getId(), created.getId());
+
+        assertEquals(item.getName(), booking.getItem().getName());
+        assertEquals(booker.getName(), booking.getBooker().getName());
+    }
+
+    @Test
+    void shouldShowApprovedBookingFromSummary() {
+        BookingOutputDto created = bookingService.create(BookingDto.builder()
+                .itemId(item.getId())
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .build(), booker.getId());
+        bookingService.approve(owner.getId(), created.getId(), true);
+
+        ItemOutputDto ownerView = (ItemOutputDto) itemService.getById(item.getId(), owner.getId());
+        List<ItemOutputDto> items = itemService.getAllByUserId(owner.getId(), 0, 10);
+
+        assertNull(ownerView.getLastBooking());
+        assertEquals(created.getId(), ownerView.getNextBooking().getId());
+        assertEquals(booker.getId(), ownerView.getNextBooking().getBookerId());
+        assertEquals(ownerView.getNextBooking(), items.get(0).getNextBooking());
+    }
+
+    @Test
+    void shouldGetOwnerItemsOutsideOfCallerTransaction() {
+        List<ItemOutputDto> items = itemService.getAllByUserId(owner.getId(), 0, 10);
+
+        assertEquals(1, items.size());
+        assertEquals(item.getId(), items.get(0).getId());
+    }
+}
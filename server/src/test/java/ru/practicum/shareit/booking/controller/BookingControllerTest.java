@@ -6,16 +6,26 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingOutputDto;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.BookingOverlapException;
+import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.pagination.CursorCodec;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -103,6 +113,19 @@ class BookingControllerTest {
         verify(bookingService, times(1)).create(bookingDto, 1L);
     }
 
+    @Test
+    void shouldReturnConflictWhenBookingOverlapsApprovedBooking() throws Exception {
+        when(bookingService.create(any(), anyLong()))
+                .thenThrow(new BookingOverlapException("Вещь с id - 1 уже забронирована"));
+
+        mvc.perform(post("/bookings")
+                        .content(mapper.writeValueAsString(bookingDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.description", is("Вещь с id - 1 уже забронирована")));
+    }
+
     @Test
     void shouldSetApprovedStatus() throws Exception {
         when(bookingService.approve(anyLong(), anyLong(), anyBoolean())).thenReturn(bookingOutputDto);
@@ -120,6 +143,45 @@ class BookingControllerTest {
         verify(bookingService, times(1)).approve(1L, 1L, true);
     }
 
+    @Test
+    void shouldReturnConflictWhenItemIsLockedByConcurrentApprove() throws Exception {
+        when(bookingService.approve(anyLong(), anyLong(), anyBoolean()))
+                .thenThrow(new CannotAcquireLockException("Timeout trying to lock table"));
+
+        mvc.perform(patch("/bookings/{bookingId}", 1L)
+                        .param("approved", "true")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.description", is("Данные изменены параллельным запросом, повторите попытку")));
+    }
+
+    @Test
+    void shouldReturnConflictWhenApprovedOverlapConstraintIsViolated() throws Exception {
+        when(bookingService.approve(anyLong(), anyLong(), anyBoolean()))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement",
+                        new SQLException("ERROR: conflicting key value violates exclusion constraint " +
+                                "\"ex_bookings_item_approved\"", "23P01")));
+
+        mvc.perform(patch("/bookings/{bookingId}", 1L)
+                        .param("approved", "true")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.description", is("Вещь уже забронирована на это время")));
+    }
+
+    @Test
+    void shouldReturnServerErrorOnOtherDataIntegrityViolation() throws Exception {
+        when(bookingService.approve(anyLong(), anyLong(), anyBoolean()))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement",
+                        new SQLException("ERROR: null value in column \"status\" violates not-null constraint",
+                                "23502")));
+
+        mvc.perform(patch("/bookings/{bookingId}", 1L)
+                        .param("approved", "true")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isInternalServerError());
+    }
+
     @Test
     void shouldGetBookingById() throws Exception {
         when(bookingService.getBooking(anyLong(), anyLong())).thenReturn(bookingOutputDto);
@@ -170,4 +232,97 @@ class BookingControllerTest {
         verify(bookingService, times(1)).getBookingsByUserId(1L, "ALL", 0, 10);
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldGetBookingsAfterCursorAndReturnNextCursor() throws Exception {
+        String cursor = new BookingCursor(bookingOutputDto.getStart(), bookingOutputDto.getId()).encode();
+        when(bookingService.getBookingsByBookerIdAfter(anyLong(), anyString(), anyString(), anyInt()))
+                .thenReturn(List.of(otherBookingOutputDto));
+
+        mvc.perform(get("/bookings")
+                        .param("state", "ALL")
+                        .param("cursor", cursor)
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorCodec.HEADER, new BookingCursor(otherBookingOutputDto.getStart(),
+                        otherBookingOutputDto.getId()).encode()))
+                .andExpect(content().json(mapper.writeValueAsString(List.of(otherBookingOutputDto))));
+
+        verify(bookingService, times(1)).getBookingsByBookerIdAfter(1L, "ALL", cursor, 1);
+        verify(bookingService, never()).getBookingsByBookerId(anyLong(), anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void shouldNotReturnNextCursorOnLastOwnerPage() throws Exception {
+        when(bookingService.getBookingsByUserIdAfter(anyLong(), anyString(), anyString(), anyInt()))
+                .thenReturn(List.of(otherBookingOutputDto));
+
+        mvc.perform(get("/bookings/owner")
+                        .param("state", "ALL")
+                        .param("cursor", "abc")
+                        .param("size", "10")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CursorCodec.HEADER));
+
+        verify(bookingService, times(1)).getBookingsByUserIdAfter(1L, "ALL", "abc", 10);
+    }
+
+    @Test
+    void shouldReturnETagWithBookings() throws Exception {
+        when(bookingService.getBookingsByBookerIdETag(1L, "ALL")).thenReturn("W/\"1\"");
+        when(bookingService.getBookingsByBookerId(anyLong(), anyString(), anyInt(), anyInt()))
+                .thenReturn(List.of(bookingOutputDto));
+
+        mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1\""))
+                .andExpect(content().json(mapper.writeValueAsString(List.of(bookingOutputDto))));
+    }
+
+    @Test
+    void shouldReturnNotModifiedWithoutLoadingOwnerBookings() throws Exception {
+        when(bookingService.getBookingsByUserIdETag(1L, "ALL")).thenReturn("W/\"1\"");
+
+        mvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", 1L)
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1\""))
+                .andExpect(content().string(""));
+
+        verify(bookingService, never()).getBookingsByUserId(anyLong(), anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void shouldExportBookingsAsNdjson() throws Exception {
+        when(bookingService.exportBookingsByBookerId(1L))
+                .thenReturn(action -> List.of(bookingOutputDto, otherBookingOutputDto).forEach(action));
+
+        MvcResult result = mvc.perform(get("/bookings/export")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().bytes((mapper.writeValueAsString(bookingOutputDto) + "\n" +
+                        mapper.writeValueAsString(otherBookingOutputDto) + "\n").getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void shouldReturnNotFoundBeforeOwnerExportStarts() throws Exception {
+        when(bookingService.exportBookingsByUserId(99L))
+                .thenThrow(new NotFoundException("Пользователь по id - 99 не найден"));
+
+        mvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 99L)
+                        .accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.description", is("Пользователь по id - 99 не найден")));
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.booking.dto;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.IncorrectParameterException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingCursorTest {
+
+    @Test
+    void shouldDecodeEncodedCursor() {
+        LocalDateTime start = LocalDateTime.of(2023, 5, 1, 12, 30, 15, 123456000);
+
+        BookingCursor cursor = BookingCursor.decode(new BookingCursor(start, 42L).encode());
+
+        assertEquals(start, cursor.getStart());
+        assertEquals(42L, cursor.getId());
+    }
+
+    @Test
+    void shouldReturnNextCursorOnlyForFullPage() {
+        BookingOutputDto booking = BookingOutputDto.builder()
+                .id(7L)
+                .start(LocalDateTime.of(2023, 5, 1, 12, 0))
+                .build();
+
+        assertEquals(new BookingCursor(booking.getStart(), 7L).encode(), BookingCursor.next(List.of(booking), 1));
+        assertNull(BookingCursor.next(List.of(booking), 2));
+    }
+
+    @Test
+    void shouldThrowIncorrectParameterExceptionWhenCursorIsBroken() {
+        assertThrows(IncorrectParameterException.class, () -> BookingCursor.decode("%%%"));
+        assertThrows(IncorrectParameterException.class, () -> BookingCursor.decode("MTIz"));
+    }
+}
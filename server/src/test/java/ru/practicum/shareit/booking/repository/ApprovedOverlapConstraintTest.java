@@ -0,0 +1,59 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Только на PostgreSQL с btree_gist, запуск как у TrigramItemSearchEngineTest.
+ */
+@EnabledIfEnvironmentVariable(named = "SHAREIT_TEST_POSTGRES_URL", matches = ".+")
+class ApprovedOverlapConstraintTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private long itemId;
+    private long bookerId;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = new DriverManagerDataSource(System.getenv("SHAREIT_TEST_POSTGRES_URL"));
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"),
+                new ClassPathResource("schema-postgresql.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        long ownerId = jdbcTemplate.queryForObject("INSERT INTO users (name, email) " +
+                "VALUES ('Владелец', 'owner@mail.ru') RETURNING id", Long.class);
+        bookerId = jdbcTemplate.queryForObject("INSERT INTO users (name, email) " +
+                "VALUES ('Арендатор', 'booker@mail.ru') RETURNING id", Long.class);
+        itemId = jdbcTemplate.queryForObject("INSERT INTO items (name, description, is_available, owner_id) " +
+                "VALUES ('Дрель', 'Сверлит бетон', true, ?) RETURNING id", Long.class, ownerId);
+    }
+
+    @Test
+    void shouldNotAllowOverlappingApprovedBookings() {
+        insertApproved("2030-01-01 00:00", "2030-01-05 00:00");
+        insertApproved("2030-01-05 00:00", "2030-01-06 00:00");
+        long waiting = jdbcTemplate.queryForObject("INSERT INTO bookings (start_date, end_date, item_id, " +
+                "booker_id, status) VALUES (TIMESTAMP '2030-01-04 00:00', TIMESTAMP '2030-01-07 00:00', ?, ?, " +
+                "'WAITING') RETURNING id", Long.class, itemId, bookerId);
+
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("UPDATE bookings SET status = 'APPROVED' WHERE id = ?", waiting));
+        assertTrue(e.getMessage().contains("ex_bookings_item_approved"));
+    }
+
+    private long insertApproved(String start, String end) {
+        return jdbcTemplate.queryForObject("INSERT INTO bookings (start_date, end_date, item_id, booker_id, status) " +
+                "VALUES (CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP), ?, ?, 'APPROVED') RETURNING id", Long.class,
+                start, end, itemId, bookerId);
+    }
+}
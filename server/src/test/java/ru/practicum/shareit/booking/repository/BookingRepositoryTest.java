@@ -6,17 +6,23 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingOutputDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingListRepository.Side;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static ru.practicum.shareit.booking.model.BookingMapper.toBookingOutputDto;
 
 @DataJpaTest
 class BookingRepositoryTest {
@@ -65,147 +71,148 @@ class BookingRepositoryTest {
 
     @Test
     void shouldFindAllBookingsByBookerId() {
-        booking.setStart(LocalDateTime.now().minusDays(2));
-        booking.setEnd(LocalDateTime.now().minusDays(1));
+        booking.setStart(LocalDateTime.now().minusDays(2).truncatedTo(ChronoUnit.SECONDS));
+        booking.setEnd(LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.SECONDS));
 
         booking = bookingRepository.save(booking);
-        List<Booking> bookings = bookingRepository.findAllByBookerIdOrderByStartDesc(user.getId(), PageRequest.of(0, 10));
+        List<BookingOutputDto> bookings = bookingRepository.findPage(Side.BOOKER, user.getId(), State.ALL,
+                LocalDateTime.now(), null, PageRequest.of(0, 10));
 
         assertNotNull(bookings);
         assertEquals(1, bookings.size());
-        assertEquals(booking, bookings.get(0));
+        assertEquals(toBookingOutputDto(booking), bookings.get(0));
     }
 
     @Test
     void shouldFindAllBookingsByBookerIdAndStartBeforeAndEndAfter() {
-        booking.setStart(LocalDateTime.now());
-        booking.setEnd(LocalDateTime.now().plusDays(1));
+        booking.setStart(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        booking.setEnd(LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS));
 
         booking = bookingRepository.save(booking);
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(
-                user.getId(), LocalDateTime.now(), LocalDateTime.now(), PageRequest.of(0, 10));
+        List<BookingOutputDto> bookings = bookingRepository.findPage(Side.BOOKER, user.getId(), State.CURRENT,
+                LocalDateTime.now(), null, PageRequest.of(0, 10));
 
         assertNotNull(bookings);
         assertEquals(1, bookings.size());
-        assertEquals(booking, bookings.get(0));
+        assertEquals(toBookingOutputDto(booking), bookings.get(0));
     }
 
     @Test
     void shouldFindAllBookingsByBookerIdAndStartBefore() {
-        booking.setStart(LocalDateTime.now().minusDays(2));
-        booking.setEnd(LocalDateTime.now().minusDays(1));
+        booking.setStart(LocalDateTime.now().minusDays(2).truncatedTo(ChronoUnit.SECONDS));
+        booking.setEnd(LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.SECONDS));
 
         booking = bookingRepository.save(booking);
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndEndBeforeOrderByStartDesc(
-                user.getId(), LocalDateTime.now(), PageRequest.of(0, 10));
+        List<BookingOutputDto> bookings = bookingRepository.findPage(Side.BOOKER, user.getId(), State.PAST,
+                LocalDateTime.now(), null, PageRequest.of(0, 10));
 
         assertNotNull(bookings);
         assertEquals(1, bookings.size());
-        assertEquals(booking, bookings.get(0));
+        assertEquals(toBookingOutputDto(booking), bookings.get(0));
     }
 
     @Test
     void shouldFindAllBookingsByBookerIdAndStartAfter() {
-        booking.setStart(LocalDateTime.now().plusDays(2));
-        booking.setEnd(LocalDateTime.now().plusDays(3));
+        booking.setStart(LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.SECONDS));
+        booking.setEnd(LocalDateTime.now().plusDays(3).truncatedTo(ChronoUnit.SECONDS));
 
         booking = bookingRepository.save(booking);
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndStartAfterOrderByStartDesc(
-                user.getId(), LocalDateTime.now(), PageRequest.of(0, 10));
+        List<BookingOutputDto> bookings = bookingRepository.findPage(Side.BOOKER, user.getId(), State.FUTURE,
+                LocalDateTime.now(), null, PageRequest.of(0, 10));
 
         assertNotNull(bookings);
         assertEquals(1, bookings.size());
-        assertEquals(booking, bookings.get(0));
+        assertEquals(toBookingOutputDto(booking), bookings.get(0));
     }
 
     @Test
     void shouldFindAllBookingsByBookerIdAndStatus() {
-        booking.setStart(LocalDateTime.now().plusDays(2));
-        booking.setEnd(LocalDateTime.now().plusDays(3));
+        booking.setStart(LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.SECONDS));
+        booking.setEnd(LocalDateTime.now().plusDays(3).truncatedTo(ChronoUnit.SECONDS));
 
         booking = bookingRepository.save(booking);
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(
-                user.getId(), Status.WAITING, PageRequest.of(0, 10));
+        List<BookingOutputDto> bookings = bookingRepository.findPage(Side.BOOKER, user.getId(), State.WAITING,
+                LocalDateTime.now(), null, PageRequest.of(0, 10));
 
         assertNotNull(bookings);
         assertEquals(1, bookings.size());
-        assertEquals(booking, bookings.get(0));
+        assertEquals(toBookingOutputDto(booking), bookings.get(0));
     }
 
     @Test
     void shouldFindAllBookingsByItemOwner() {
-        booking.setStart(LocalDateTime.now().plusDays(2));
-        booking.setEnd(LocalDateTime.now().plusDays(3));
+        booking.setStart(LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.SECONDS));
+        booking.setEnd(LocalDateTime.now().plusDays(3).truncatedTo(ChronoUnit.SECONDS));
 
         booking = bookingRepository.save(booking);
-        List<Booking> bookings = bookingRepository.findAllByItemOwnerIdOrderByStartDesc(
-                user.getId(), PageRequest.of(0, 10));
+        List<BookingOutputDto> bookings = bookingRepository.findPage(Side.ITEM_OWNER, user.getId(), State.ALL,
+                LocalDateTime.now(), null, PageRequest.of(0, 10));
 
         assertNotNull(bookings);
         assertEquals(1, bookings.size());
-        assertEquals(booking, bookings.get(0));
+        assertEquals(toBookingOutputDto(booking), bookings.get(0));
     }
 
     @Test
     void shouldFindAllBookingsByItemOwnerAndStartBeforeAndEndAfter() {
-        booking.setStart(LocalDateTime.now());
-        booking.setEnd(LocalDateTime.now().plusDays(1));
+        booking.setStart(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        booking.setEnd(LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS));
 
         booking = bookingRepository.save(booking);
-        List<Booking> bookings = bookingRepository.findAllByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(
-                user.getId(), LocalDateTime.now(), LocalDateTime.now(), PageRequest.of(0, 10));
+        List<BookingOutputDto> bookings = bookingRepository.findPage(Side.ITEM_OWNER, user.getId(), State.CURRENT,
+                LocalDateTime.now(), null, PageRequest.of(0, 10));
 
         assertNotNull(bookings);
         assertEquals(1, bookings.size());
-        assertEquals(booking, bookings.get(0));
+        assertEquals(toBookingOutputDto(booking), bookings.get(0));
     }
 
     @Test
     void shouldFindAllBookingsByItemOwnerAndEndBefore() {
-        booking.setStart(LocalDateTime.now().minusDays(2));
-        booking.setEnd(LocalDateTime.now().minusDays(1));
+        booking.setStart(LocalDateTime.now().minusDays(2).truncatedTo(ChronoUnit.SECONDS));
+        booking.setEnd(LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.SECONDS));
 
         booking = bookingRepository.save(booking);
-        List<Booking> bookings = bookingRepository.findAllByItemOwnerIdAndEndBeforeOrderByStartDesc(
-                user.getId(), LocalDateTime.now(), PageRequest.of(0, 10));
+        List<BookingOutputDto> bookings = bookingRepository.findPage(Side.ITEM_OWNER, user.getId(), State.PAST,
+                LocalDateTime.now(), null, PageRequest.of(0, 10));
 
         assertNotNull(bookings);
         assertEquals(1, bookings.size());
-        assertEquals(booking, bookings.get(0));
+        assertEquals(toBookingOutputDto(booking), bookings.get(0));
     }
 
     @Test
     void shouldFindAllBookingsByItemOwnerAndStartAfter() {
-        booking.setStart(LocalDateTime.now().plusDays(2));
-        booking.setEnd(LocalDateTime.now().plusDays(3));
+        booking.setStart(LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.SECONDS));
+        booking.setEnd(LocalDateTime.now().plusDays(3).truncatedTo(ChronoUnit.SECONDS));
 
         booking = bookingRepository.save(booking);
-        List<Booking> bookings = bookingRepository.findAllByItemOwnerIdAndStartAfterOrderByStartDesc(
-                user.getId(), LocalDateTime.now(), PageRequest.of(0, 10));
+        List<BookingOutputDto> bookings = bookingRepository.findPage(Side.ITEM_OWNER, user.getId(), State.FUTURE,
+                LocalDateTime.now(), null, PageRequest.of(0, 10));
 
         assertNotNull(bookings);
         assertEquals(1, bookings.size());
-        assertEquals(booking, bookings.get(0));
+        assertEquals(toBookingOutputDto(booking), bookings.get(0));
     }
 
     @Test
     void shouldFindAllBookingsByItemOwnerAndStatus() {
-        booking.setStart(LocalDateTime.now().plusDays(2));
-        booking.setEnd(LocalDateTime.now().plusDays(3));
+        booking.setStart(LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.SECONDS));
+        booking.setEnd(LocalDateTime.now().plusDays(3).truncatedTo(ChronoUnit.SECONDS));
 
         booking = bookingRepository.save(booking);
-        List<Booking> bookings = bookingRepository.findAllByItemOwnerIdAndStatusOrderByStartDesc(
-                user.getId(), Status.WAITING, PageRequest.of(0, 10));
+        List<BookingOutputDto> bookings = bookingRepository.findPage(Side.ITEM_OWNER, user.getId(), State.WAITING,
+                LocalDateTime.now(), null, PageRequest.of(0, 10));
 
         assertNotNull(bookings);
         assertEquals(1, bookings.size());
-        assertEquals(booking, bookings.get(0));
+        assertEquals(toBookingOutputDto(booking), bookings.get(0));
     }
 
     @Test
     void shouldFindFirstBookingsByItemAndBookerAndStatusAndEndIsBefore() {
-        booking.setStart(LocalDateTime.now().minusDays(2));
-        booking.setEnd(LocalDateTime.now().minusDays(3));
+        booking.setStart(LocalDateTime.now().minusDays(2).truncatedTo(ChronoUnit.SECONDS));
+        booking.setEnd(LocalDateTime.now().minusDays(3).truncatedTo(ChronoUnit.SECONDS));
 
         booking = bookingRepository.save(booking);
         Booking savedBooking = bookingRepository.findFirstByItemIdAndBookerIdAndStatusAndEndIsBeforeOrderByEndDesc(
@@ -214,5 +221,118 @@ class BookingRepositoryTest {
         assertEquals(booking, savedBooking);
     }
 
+    @Test
+    void shouldFindLastAndNextApprovedBookingsByItemIds() {
+        Booking past = bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(user)
+                .start(LocalDateTime.now().minusDays(3))
+                .end(LocalDateTime.now().minusDays(2))
+                .status(Status.APPROVED)
+                .build());
+        Booking last = bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(user)
+                .start(LocalDateTime.now().minusDays(1))
+                .end(LocalDateTime.now().plusDays(1))
+                .status(Status.APPROVED)
+                .build());
+        Booking next = bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(user)
+                .start(LocalDateTime.now().plusDays(2))
+                .end(LocalDateTime.now().plusDays(3))
+                .status(Status.APPROVED)
+                .build());
+        bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(user)
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .status(Status.WAITING)
+                .build());
+
+        List<Booking> lastBookings = bookingRepository.findLastBookingsByItemIds(List.of(item.getId()),
+                Status.APPROVED, LocalDateTime.now());
+        List<Booking> nextBookings = bookingRepository.findNextBookingsByItemIds(List.of(item.getId()),
+                Status.APPROVED, LocalDateTime.now());
+
+        assertEquals(List.of(last), lastBookings);
+        assertEquals(List.of(next), nextBookings);
+        assertNotEquals(past, lastBookings.get(0));
+    }
 
-}
\ No newline at end of file
+    @Test
+    void shouldSeekBookingsByBookerIdAfterCursor() {
+        LocalDateTime start = LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        Booking first = bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(user)
+                .start(start)
+                .end(start.plusHours(1))
+                .status(Status.WAITING)
+                .build());
+        Booking sameStart = bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(user)
+                .start(start)
+                .end(start.plusHours(2))
+                .status(Status.WAITING)
+                .build());
+        Booking earlier = bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(user)
+                .start(start.minusDays(1))
+                .end(start.minusHours(1))
+                .status(Status.APPROVED)
+                .build());
+
+        List<BookingOutputDto> bookings = bookingRepository.findPage(Side.BOOKER, user.getId(), State.ALL,
+                LocalDateTime.now(), new BookingCursor(sameStart.getStart(), sameStart.getId()), PageRequest.of(0, 10));
+        List<BookingOutputDto> waiting = bookingRepository.findPage(Side.BOOKER, user.getId(), State.WAITING,
+                LocalDateTime.now(), new BookingCursor(sameStart.getStart(), sameStart.getId()), PageRequest.of(0, 10));
+        List<BookingOutputDto> owned = bookingRepository.findPage(Side.ITEM_OWNER, user.getId(), State.ALL,
+                LocalDateTime.now(), new BookingCursor(first.getStart(), first.getId()), PageRequest.of(0, 10));
+
+        assertEquals(List.of(toBookingOutputDto(first), toBookingOutputDto(earlier)), bookings);
+        assertEquals(List.of(toBookingOutputDto(first)), waiting);
+        assertEquals(List.of(toBookingOutputDto(earlier)), owned);
+    }
+
+    @Test
+    void shouldFindLatestApprovedBookingStartedBefore() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Booking first = bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(user)
+                .status(Status.APPROVED)
+                .start(now.plusDays(1))
+                .end(now.plusDays(2))
+                .build());
+        Booking second = bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(user)
+                .status(Status.APPROVED)
+                .start(now.plusDays(3))
+                .end(now.plusDays(4))
+                .build());
+        bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(user)
+                .status(Status.WAITING)
+                .start(now.plusDays(5))
+                .end(now.plusDays(6))
+                .build());
+
+        assertEquals(second, bookingRepository.findFirstByItemIdAndStatusAndStartBeforeOrderByStartDesc(item.getId(),
+                Status.APPROVED, now.plusDays(10)));
+        assertEquals(first, bookingRepository.findFirstByItemIdAndStatusAndStartBeforeOrderByStartDesc(item.getId(),
+                Status.APPROVED, now.plusDays(3)));
+        assertNull(bookingRepository.findFirstByItemIdAndStatusAndStartBeforeOrderByStartDesc(item.getId(),
+                Status.APPROVED, now.plusDays(1)));
+        assertEquals(first, bookingRepository.findFirstByItemIdAndStatusAndStartBeforeAndIdNotOrderByStartDesc(
+                item.getId(), Status.APPROVED, now.plusDays(10), second.getId()));
+        assertEquals(second, bookingRepository.findFirstByItemIdAndStatusAndStartAfterOrderByStartAsc(item.getId(),
+                Status.APPROVED, now.plusDays(2)));
+    }
+}
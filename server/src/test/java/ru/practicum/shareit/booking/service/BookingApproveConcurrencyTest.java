@@ -0,0 +1,240 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.etag.ListsVersionRepository;
+import ru.practicum.shareit.exception.BookingOverlapException;
+import ru.practicum.shareit.exception.IncorrectParameterException;
+import ru.practicum.shareit.item.dto.ItemWithRequestDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.LikeItemSearchEngine;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.service.UserServiceImpl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Параллельные подтверждения через настоящую БД: ни одно изменение не теряется,
+ * а из пересекающихся бронирований одной вещи подтверждается только одно.
+ */
+@Slf4j
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BookingServiceImpl.class, ItemServiceImpl.class, UserServiceImpl.class, LikeItemSearchEngine.class,
+        ListsVersionRepository.class})
+class BookingApproveConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ListsVersionRepository listsVersionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ExecutorService executor;
+    private UserDto owner;
+    private UserDto booker;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+        owner = userService.create(UserDto.builder()
+                .name("Owner")
+                .email("owner@email.ru")
+                .build());
+        booker = userService.create(UserDto.builder()
+                .name("Booker")
+                .email("booker@email.ru")
+                .build());
+        start = LocalDateTime.now().plusDays(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        bookingRepository.deleteAll();
+        itemRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void shouldApproveSameBookingOnlyOnce() throws Exception {
+        Long itemId = createItem();
+        Long bookingId = createBooking(itemId, 0);
+
+        Map<Class<?>, Long> results = approveConcurrently(List.of(bookingId, bookingId, bookingId, bookingId,
+                bookingId, bookingId, bookingId, bookingId, bookingId, bookingId, bookingId, bookingId));
+
+        Booking booking = bookingRepository.findById(bookingId).orElseThrow();
+        assertEquals(1L, results.get(Status.class));
+        assertEquals(11L, results.get(IncorrectParameterException.class));
+        assertEquals(Status.APPROVED, booking.getStatus());
+        assertEquals(1L, booking.getVersion());
+    }
+
+    @Test
+    void shouldApproveOnlyOneOfOverlappingBookings() throws Exception {
+        Long itemId = createItem();
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            bookingIds.add(createBooking(itemId, 0));
+        }
+
+        Map<Class<?>, Long> results = approveConcurrently(bookingIds);
+
+        assertEquals(1L, results.get(Status.class));
+        assertEquals(19L, results.get(BookingOverlapException.class));
+        assertEquals(1L, bookingRepository.findAll().stream()
+                .filter(booking -> booking.getStatus() == Status.APPROVED)
+                .count());
+    }
+
+    /**
+     * Второй экземпляр сервиса - как второй экземпляр сервера над той же БД.
+     */
+    @Test
+    void shouldApproveOnlyOneOfOverlappingBookingsAcrossInstances() throws Exception {
+        BookingService otherInstance = new BookingServiceImpl(bookingRepository, userService, itemService,
+                listsVersionRepository, transactionManager);
+        Long itemId = createItem();
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            bookingIds.add(createBooking(itemId, 0));
+        }
+
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<Class<?>>> futures = new ArrayList<>();
+        for (int i = 0; i < bookingIds.size(); i++) {
+            BookingService instance = i % 2 == 0 ? bookingService : otherInstance;
+            Long bookingId = bookingIds.get(i);
+            futures.add(executor.submit(() -> {
+                ready.await();
+                try {
+                    instance.approve(owner.getId(), bookingId, true);
+                    return Status.class;
+                } catch (RuntimeException e) {
+                    return e.getClass();
+                }
+            }));
+        }
+        ready.countDown();
+
+        Map<Class<?>, Long> results = new HashMap<>();
+        for (Future<Class<?>> future : futures) {
+            results.merge(future.get(30, TimeUnit.SECONDS), 1L, Long::sum);
+        }
+
+        assertEquals(Map.of(Status.class, 1L, BookingOverlapException.class, 19L), results);
+        assertEquals(1L, bookingRepository.findAll().stream()
+                .filter(booking -> booking.getStatus() == Status.APPROVED)
+                .count());
+    }
+
+    @Test
+    void shouldApproveDisjointBookingsOfManyItemsInParallel() throws Exception {
+        List<Long> bookingIds = new ArrayList<>();
+        for (int item = 0; item < 4; item++) {
+            Long itemId = createItem();
+            for (int day = 0; day < 25; day++) {
+                bookingIds.add(createBooking(itemId, day));
+            }
+        }
+
+        long startedAt = System.nanoTime();
+        Map<Class<?>, Long> results = approveConcurrently(bookingIds);
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+
+        log.info("Подтверждено бронирований - {} за {} с, {} в секунду", bookingIds.size(),
+                String.format("%.3f", seconds), String.format("%.0f", bookingIds.size() / seconds));
+        assertEquals(Map.of(Status.class, (long) bookingIds.size()), results);
+        bookingRepository.findAll().forEach(booking -> assertEquals(1L, booking.getVersion()));
+    }
+
+    /**
+     * Возвращает число исходов по типу: Status.class - подтверждено, иначе класс исключения.
+     */
+    private Map<Class<?>, Long> approveConcurrently(List<Long> bookingIds) throws Exception {
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<Class<?>>> futures = new ArrayList<>();
+        for (Long bookingId : bookingIds) {
+            futures.add(executor.submit(() -> {
+                ready.await();
+                try {
+                    bookingService.approve(owner.getId(), bookingId, true);
+                    return Status.class;
+                } catch (RuntimeException e) {
+                    return e.getClass();
+                }
+            }));
+        }
+        ready.countDown();
+
+        List<Class<?>> outcomes = new ArrayList<>();
+        for (Future<Class<?>> future : futures) {
+            outcomes.add(future.get(30, TimeUnit.SECONDS));
+        }
+        return outcomes.stream()
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+    }
+
+    private Long createItem() {
+        ItemWithRequestDto itemDto = new ItemWithRequestDto();
+        itemDto.setName("Дрель");
+        itemDto.setDescription("Простая дрель");
+        itemDto.setAvailable(true);
+        return itemService.create(itemDto, owner.getId()).getId();
+    }
+
+    private Long createBooking(Long itemId, int day) {
+        return bookingService.create(BookingDto.builder()
+                .itemId(itemId)
+                .start(start.plusDays(day))
+                .end(start.plusDays(day).plusHours(12))
+                .build(), booker.getId()).getId();
+    }
+}
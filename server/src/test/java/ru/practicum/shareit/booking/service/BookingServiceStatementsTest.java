@@ -0,0 +1,195 @@
+package ru.practicum.shareit.booking.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingOutputDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.etag.ListsVersionRepository;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.LikeItemSearchEngine;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.service.UserServiceImpl;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Бронирование и страница бронирований загружаются одним запросом вместе с вещами и арендаторами,
+ * у владельца добавляется проверка наличия у него вещей. Бронирование доступно без проверки пользователя,
+ * поэтому запрос один и при пустом кэше пользователей.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({BookingServiceImpl.class, ItemServiceImpl.class, UserServiceImpl.class, LikeItemSearchEngine.class,
+        ListsVersionRepository.class})
+class BookingServiceStatementsTest {
+
+    private static final int BOOKINGS = 5;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User owner;
+    private User booker;
+    private Booking booking;
+    private Booking otherBooking;
+
+    @BeforeEach
+    void setUp() {
+        owner = entityManager.persist(User.builder()
+                .name("Owner")
+                .email("owner@email.ru")
+                .build());
+        booker = entityManager.persist(User.builder()
+                .name("Booker")
+                .email("booker@email.ru")
+                .build());
+
+        LocalDateTime start = LocalDateTime.now().minusDays(BOOKINGS);
+        for (int i = 0; i < BOOKINGS; i++) {
+            Item item = entityManager.persist(Item.builder()
+                    .name("Вещь " + i)
+                    .description("Простая вещь")
+                    .available(true)
+                    .owner(owner)
+                    .build());
+            User otherBooker = entityManager.persist(User.builder()
+                    .name("Booker " + i)
+                    .email("booker" + i + "@email.ru")
+                    .build());
+            booking = entityManager.persist(Booking.builder()
+                    .item(item)
+                    .booker(booker)
+                    .start(start.plusDays(i))
+                    .end(start.plusDays(i).plusHours(1))
+                    .status(Status.APPROVED)
+                    .build());
+            otherBooking = entityManager.persist(Booking.builder()
+                    .item(item)
+                    .booker(otherBooker)
+                    .start(start.plusDays(i).plusHours(2))
+                    .end(start.plusDays(i).plusHours(3))
+                    .status(Status.WAITING)
+                    .build());
+        }
+        entityManager.flush();
+
+        userService.checkUserIfExists(owner.getId());
+        userService.checkUserIfExists(booker.getId());
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void shouldGetBookerPageInOneStatement() {
+        List<BookingOutputDto> bookings = bookingService.getBookingsByBookerId(booker.getId(), "ALL", 0, BOOKINGS);
+
+        assertEquals(BOOKINGS, bookings.size());
+        bookings.forEach(booking -> assertEquals(booker.getName(), booking.getBooker().getName()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldGetBookingWithAccessCheckInOneStatement() {
+        BookingOutputDto found = bookingService.getBooking(booker.getId(), booking.getId());
+
+        assertEquals(booking.getId(), found.getId());
+        assertEquals(booker.getName(), found.getBooker().getName());
+        assertEquals(booking.getItem().getName(), found.getItem().getName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldGetBookingForUserNotInCacheInOneStatement() {
+        BookingOutputDto found = bookingService.getBooking(otherBooking.getBooker().getId(), otherBooking.getId());
+
+        assertEquals(otherBooking.getId(), found.getId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldDistinguishUnknownBookingFromForbiddenOne() {
+        NotFoundException unknown = assertThrows(NotFoundException.class,
+                () -> bookingService.getBooking(booker.getId(), Long.MAX_VALUE));
+        User stranger = entityManager.persist(User.builder()
+                .name("Stranger")
+                .email("stranger@email.ru")
+                .build());
+        NotFoundException forbidden = assertThrows(NotFoundException.class,
+                () -> bookingService.getBooking(stranger.getId(), booking.getId()));
+        NotFoundException unknownUser = assertThrows(NotFoundException.class,
+                () -> bookingService.getBooking(Long.MAX_VALUE, booking.getId()));
+
+        assertEquals("Бронирование по id - " + Long.MAX_VALUE + " не найдено", unknown.getMessage());
+        assertEquals("Бронирование по id - " + booking.getId() + " не найдено для пользователя по id - " +
+                stranger.getId(), forbidden.getMessage());
+        assertEquals("Пользователь по id - " + Long.MAX_VALUE + " не найден", unknownUser.getMessage());
+    }
+
+    @Test
+    void shouldGetOwnerPageInConstantNumberOfStatements() {
+        List<BookingOutputDto> bookings = bookingService.getBookingsByUserId(owner.getId(), "WAITING", 0, BOOKINGS);
+
+        assertEquals(BOOKINGS, bookings.size());
+        assertEquals(BOOKINGS, bookings.stream().map(booking -> booking.getBooker().getId()).distinct().count());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldGetOwnerPageAfterCursorInConstantNumberOfStatements() {
+        String cursor = new BookingCursor(LocalDateTime.now().plusDays(1), Long.MAX_VALUE).encode();
+
+        List<BookingOutputDto> bookings = bookingService.getBookingsByUserIdAfter(owner.getId(), "ALL", cursor,
+                BOOKINGS * 2);
+
+        assertEquals(BOOKINGS * 2, bookings.size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldExportWholeBookerHistoryInOneStatement() {
+        List<BookingOutputDto> exported = new ArrayList<>();
+
+        bookingService.exportBookingsByBookerId(booker.getId()).forEach(exported::add);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(bookingService.getBookingsByBookerId(booker.getId(), "ALL", 0, BOOKINGS), exported);
+    }
+
+    @Test
+    void shouldExportWholeOwnerHistory() {
+        List<BookingOutputDto> exported = new ArrayList<>();
+
+        bookingService.exportBookingsByUserId(owner.getId()).forEach(exported::add);
+
+        assertEquals(BOOKINGS * 2, exported.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
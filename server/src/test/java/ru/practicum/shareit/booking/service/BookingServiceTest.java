@@ -3,17 +3,25 @@ package ru.practicum.shareit.booking.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.TestPropertySource;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingOutputDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingMapper;
+import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingListRepository.Side;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.etag.ListsVersionRepository;
+import ru.practicum.shareit.exception.BookingOverlapException;
 import ru.practicum.shareit.exception.IncorrectParameterException;
 import ru.practicum.shareit.exception.NotAvailableException;
 import ru.practicum.shareit.exception.NotFoundException;
@@ -51,6 +59,12 @@ class BookingServiceTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ListsVersionRepository listsVersionRepository;
+
     private User user;
     private User owner;
     private Item item;
@@ -176,8 +190,8 @@ class BookingServiceTest {
 
     @Test
     void shouldApproveBooking() {
-        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
+        when(bookingRepository.findWithItemAndBookerById(anyLong())).thenReturn(Optional.of(booking));
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(booking);
         booking.setStatus(Status.WAITING);
 
         bookingOutputDto = bookingService.approve(owner.getId(), booking.getId(), true);
@@ -187,12 +201,95 @@ class BookingServiceTest {
         bookingOutputDto = bookingService.approve(owner.getId(), booking.getId(), false);
         assertEquals(bookingOutputDto.getStatus(), Status.REJECTED);
 
-        verify(bookingRepository, times(2)).save(any(Booking.class));
+        verify(bookingRepository, times(2)).saveAndFlush(any(Booking.class));
+        verify(itemService, times(1)).refreshBookingSummary(item.getId());
+    }
+
+    @Test
+    void shouldThrowBookingOverlapExceptionWhenCreateOverlapsApprovedBooking() {
+        when(itemService.returnItemIfExists(anyLong())).thenReturn(item);
+        when(userService.returnUserIfExists(anyLong())).thenReturn(user);
+        when(bookingRepository.findFirstByItemIdAndStatusAndStartBeforeOrderByStartDesc(item.getId(),
+                Status.APPROVED, bookingDto.getEnd()))
+                .thenReturn(Booking.builder()
+                        .start(bookingDto.getStart().minusDays(1))
+                        .end(bookingDto.getStart().plusDays(1))
+                        .build());
+
+        assertThrows(BookingOverlapException.class, () -> bookingService.create(bookingDto, user.getId()));
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    void shouldCreateBookingRightAfterApprovedBooking() {
+        when(itemService.returnItemIfExists(anyLong())).thenReturn(item);
+        when(userService.returnUserIfExists(anyLong())).thenReturn(user);
+        when(bookingRepository.findFirstByItemIdAndStatusAndStartBeforeOrderByStartDesc(item.getId(),
+                Status.APPROVED, bookingDto.getEnd()))
+                .thenReturn(Booking.builder()
+                        .start(bookingDto.getStart().minusDays(1))
+                        .end(bookingDto.getStart())
+                        .build());
+        when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
+
+        bookingService.create(bookingDto, user.getId());
+
+        verify(bookingRepository, times(1)).save(any(Booking.class));
+    }
+
+    @Test
+    void shouldThrowBookingOverlapExceptionWhenApproveOverlapsApprovedBooking() {
+        when(bookingRepository.findWithItemAndBookerById(anyLong())).thenReturn(Optional.of(booking));
+        when(bookingRepository.findFirstByItemIdAndStatusAndStartBeforeAndIdNotOrderByStartDesc(item.getId(),
+                Status.APPROVED, booking.getEnd(), booking.getId()))
+                .thenReturn(Booking.builder()
+                        .start(booking.getStart().plusHours(1))
+                        .end(booking.getEnd().plusDays(1))
+                        .build());
+        booking.setStatus(Status.WAITING);
+
+        assertThrows(BookingOverlapException.class,
+                () -> bookingService.approve(owner.getId(), booking.getId(), true));
+        assertEquals(Status.WAITING, booking.getStatus());
+    }
+
+    @Test
+    void shouldRetryApproveAfterOptimisticLockingFailure() {
+        when(bookingRepository.findWithItemAndBookerById(anyLong())).thenReturn(Optional.of(booking));
+        when(bookingRepository.saveAndFlush(any(Booking.class)))
+                .thenAnswer(invocation -> rollBackAndFail())
+                .thenReturn(booking);
+        booking.setStatus(Status.WAITING);
+
+        bookingOutputDto = bookingService.approve(owner.getId(), booking.getId(), true);
+
+        assertEquals(Status.APPROVED, bookingOutputDto.getStatus());
+        verify(bookingRepository, times(2)).saveAndFlush(any(Booking.class));
+    }
+
+    @Test
+    void shouldGiveUpApproveAfterRepeatedOptimisticLockingFailures() {
+        when(bookingRepository.findWithItemAndBookerById(anyLong())).thenReturn(Optional.of(booking));
+        when(bookingRepository.saveAndFlush(any(Booking.class)))
+                .thenAnswer(invocation -> rollBackAndFail());
+        booking.setStatus(Status.WAITING);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> bookingService.approve(owner.getId(), booking.getId(), true));
+        verify(bookingRepository, times(3)).saveAndFlush(any(Booking.class));
+    }
+
+    /**
+     * Откат транзакции: следующая попытка снова видит бронирование в статусе WAITING.
+     */
+    private Booking rollBackAndFail() {
+        booking.setStatus(Status.WAITING);
+        throw new ObjectOptimisticLockingFailureException(Booking.class, booking.getId());
     }
 
     @Test
     void shouldThrowIncorrectParameterExceptionWhenAlreadyApproved() {
-        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+        when(bookingRepository.findWithItemAndBookerById(anyLong())).thenReturn(Optional.of(booking));
 
         assertThrows(IncorrectParameterException.class,
                 () -> bookingService.approve(owner.getId(), booking.getId(), true));
@@ -200,7 +297,7 @@ class BookingServiceTest {
 
     @Test
     void shouldThrowNotFoundExceptionWhenNotOwnerApprove() {
-        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+        when(bookingRepository.findWithItemAndBookerById(anyLong())).thenReturn(Optional.of(booking));
         booking.setStatus(Status.WAITING);
 
         assertThrows(NotFoundException.class,
@@ -209,7 +306,7 @@ class BookingServiceTest {
 
     @Test
     void shouldGetBookingByOwnerId() {
-        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+        when(bookingRepository.findWithItemAndBookerById(anyLong())).thenReturn(Optional.of(booking));
         bookingOutputDto = bookingService.getBooking(owner.getId(), booking.getId());
 
         assertEquals(bookingOutputDto, BookingMapper.toBookingOutputDto(booking));
@@ -217,7 +314,7 @@ class BookingServiceTest {
 
     @Test
     void shouldThrowNotFoundExceptionWhenNotOwnerGetBooking() {
-        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+        when(bookingRepository.findWithItemAndBookerById(anyLong())).thenReturn(Optional.of(booking));
 
         assertThrows(NotFoundException.class,
                 () -> bookingService.getBooking(user.getId(), booking.getId()));
@@ -225,81 +322,79 @@ class BookingServiceTest {
 
     @Test
     void shouldGetAllBookingsByBookerId() {
-        when(bookingRepository.findAllByBookerIdOrderByStartDesc(anyLong(), any(PageRequest.class)))
-                .thenReturn(List.of(booking));
-
-        List<BookingOutputDto> bookingOutputDtos = bookingService.getBookingsByBookerId(owner.getId(), "ALL", 1, 1);
-        assertEquals(bookingOutputDtos, List.of(BookingMapper.toBookingOutputDto(booking)));
-
-        when(bookingRepository.findAllByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(anyLong(),
-                any(LocalDateTime.class), any(LocalDateTime.class), any(PageRequest.class)))
-                .thenReturn(List.of(booking));
-        bookingOutputDtos = bookingService.getBookingsByBookerId(owner.getId(), "CURRENT", 1, 1);
-        assertEquals(bookingOutputDtos, List.of(BookingMapper.toBookingOutputDto(booking)));
-
-        when(bookingRepository.findAllByBookerIdAndEndBeforeOrderByStartDesc(anyLong(), any(LocalDateTime.class),
-                any(PageRequest.class))).thenReturn(List.of(booking));
-        bookingOutputDtos = bookingService.getBookingsByBookerId(owner.getId(), "PAST", 1, 1);
-        assertEquals(bookingOutputDtos, List.of(BookingMapper.toBookingOutputDto(booking)));
-
-        when(bookingRepository.findAllByBookerIdAndStartAfterOrderByStartDesc(anyLong(), any(LocalDateTime.class),
-                any(PageRequest.class))).thenReturn(List.of(booking));
-        bookingOutputDtos = bookingService.getBookingsByBookerId(owner.getId(), "FUTURE", 1, 1);
-        assertEquals(bookingOutputDtos, List.of(BookingMapper.toBookingOutputDto(booking)));
-
-        when(bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(anyLong(), any(Status.class),
-                any(PageRequest.class))).thenReturn(List.of(otherBooking));
-        bookingOutputDtos = bookingService.getBookingsByBookerId(owner.getId(), "WAITING", 1, 1);
-        assertEquals(bookingOutputDtos, List.of(BookingMapper.toBookingOutputDto(otherBooking)));
+        when(bookingRepository.findPage(any(Side.class), anyLong(), any(State.class), any(LocalDateTime.class),
+                isNull(), any(PageRequest.class))).thenReturn(List.of(BookingMapper.toBookingOutputDto(booking)));
 
-        when(bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(anyLong(), any(Status.class),
-                any(PageRequest.class))).thenReturn(List.of(otherBooking));
-        bookingOutputDtos = bookingService.getBookingsByBookerId(owner.getId(), "REJECTED", 1, 1);
-        assertEquals(bookingOutputDtos, List.of(BookingMapper.toBookingOutputDto(otherBooking)));
+        for (State state : State.values()) {
+            List<BookingOutputDto> bookingOutputDtos = bookingService.getBookingsByBookerId(owner.getId(),
+                    state.name(), 2, 2);
+            assertEquals(bookingOutputDtos, List.of(BookingMapper.toBookingOutputDto(booking)));
 
+            verify(bookingRepository).findPage(eq(Side.BOOKER), eq(owner.getId()), eq(state),
+                    any(LocalDateTime.class), isNull(), eq(PageRequest.of(1, 2)));
+        }
     }
 
     @Test
     void shouldGetAllBookingsByUserId() {
         when(itemService.getFirstByUserId(anyLong())).thenReturn(item);
+        when(bookingRepository.findPage(any(Side.class), anyLong(), any(State.class), any(LocalDateTime.class),
+                isNull(), any(PageRequest.class))).thenReturn(List.of(BookingMapper.toBookingOutputDto(booking)));
 
-        when(bookingRepository.findAllByItemOwnerIdOrderByStartDesc(anyLong(), any(PageRequest.class)))
-                .thenReturn(List.of(booking));
+        for (State state : State.values()) {
+            List<BookingOutputDto> bookingOutputDtos = bookingService.getBookingsByUserId(owner.getId(),
+                    state.name(), 2, 2);
+            assertEquals(bookingOutputDtos, List.of(BookingMapper.toBookingOutputDto(booking)));
 
-        List<BookingOutputDto> bookingOutputDtos = bookingService.getBookingsByUserId(user.getId(), "ALL", 1, 1);
-        assertEquals(bookingOutputDtos, List.of(BookingMapper.toBookingOutputDto(booking)));
+            verify(bookingRepository).findPage(eq(Side.ITEM_OWNER), eq(owner.getId()), eq(state),
+                    any(LocalDateTime.class), isNull(), eq(PageRequest.of(1, 2)));
+        }
+    }
 
-        when(bookingRepository.findAllByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(anyLong(),
-                any(LocalDateTime.class), any(LocalDateTime.class), any(PageRequest.class)))
-                .thenReturn(List.of(booking));
-        bookingOutputDtos = bookingService.getBookingsByUserId(user.getId(), "CURRENT", 1, 1);
-        assertEquals(bookingOutputDtos, List.of(BookingMapper.toBookingOutputDto(booking)));
+    @Test
+    void shouldThrowNotAvailableExceptionWhenUserNotHaveItems() {
+        assertThrows(NotAvailableException.class,
+                () -> bookingService.getBookingsByUserId(user.getId(), "ALL", 1, 1));
+    }
 
-        when(bookingRepository.findAllByItemOwnerIdAndEndBeforeOrderByStartDesc(anyLong(), any(LocalDateTime.class),
-                any(PageRequest.class))).thenReturn(List.of(booking));
-        bookingOutputDtos = bookingService.getBookingsByUserId(owner.getId(), "PAST", 1, 1);
-        assertEquals(bookingOutputDtos, List.of(BookingMapper.toBookingOutputDto(booking)));
+    @Test
+    void shouldGetBookingsByBookerIdAfterCursor() {
+        String cursor = new BookingCursor(booking.getStart(), booking.getId()).encode();
+        ArgumentCaptor<BookingCursor> after = ArgumentCaptor.forClass(BookingCursor.class);
+
+        when(bookingRepository.findPage(any(Side.class), anyLong(), any(State.class), any(LocalDateTime.class),
+                any(BookingCursor.class), any(PageRequest.class)))
+                .thenReturn(List.of(BookingMapper.toBookingOutputDto(otherBooking)));
+        List<BookingOutputDto> bookingOutputDtos = bookingService.getBookingsByBookerIdAfter(user.getId(), "PAST",
+                cursor, 1);
+        assertEquals(bookingOutputDtos, List.of(BookingMapper.toBookingOutputDto(otherBooking)));
 
-        when(bookingRepository.findAllByItemOwnerIdAndStartAfterOrderByStartDesc(anyLong(), any(LocalDateTime.class),
-                any(PageRequest.class))).thenReturn(List.of(booking));
-        bookingOutputDtos = bookingService.getBookingsByUserId(owner.getId(), "FUTURE", 1, 1);
-        assertEquals(bookingOutputDtos, List.of(BookingMapper.toBookingOutputDto(booking)));
+        verify(bookingRepository).findPage(eq(Side.BOOKER), eq(user.getId()), eq(State.PAST),
+                any(LocalDateTime.class), after.capture(), eq(PageRequest.of(0, 1)));
+        assertEquals(booking.getStart(), after.getValue().getStart());
+        assertEquals(booking.getId(), after.getValue().getId());
+    }
 
-        when(bookingRepository.findAllByItemOwnerIdAndStatusOrderByStartDesc(anyLong(), any(Status.class),
-                any(PageRequest.class))).thenReturn(List.of(otherBooking));
-        bookingOutputDtos = bookingService.getBookingsByUserId(owner.getId(), "WAITING", 1, 1);
-        assertEquals(bookingOutputDtos, List.of(BookingMapper.toBookingOutputDto(otherBooking)));
+    @Test
+    void shouldGetBookingsByUserIdAfterCursor() {
+        String cursor = new BookingCursor(booking.getStart(), booking.getId()).encode();
+        when(itemService.getFirstByUserId(anyLong())).thenReturn(item);
 
-        when(bookingRepository.findAllByItemOwnerIdAndStatusOrderByStartDesc(anyLong(), any(Status.class),
-                any(PageRequest.class))).thenReturn(List.of(otherBooking));
-        bookingOutputDtos = bookingService.getBookingsByUserId(owner.getId(), "REJECTED", 1, 1);
+        when(bookingRepository.findPage(any(Side.class), anyLong(), any(State.class), any(LocalDateTime.class),
+                any(BookingCursor.class), any(PageRequest.class)))
+                .thenReturn(List.of(BookingMapper.toBookingOutputDto(otherBooking)));
+        List<BookingOutputDto> bookingOutputDtos = bookingService.getBookingsByUserIdAfter(owner.getId(), "REJECTED",
+                cursor, 1);
         assertEquals(bookingOutputDtos, List.of(BookingMapper.toBookingOutputDto(otherBooking)));
 
+        verify(bookingRepository).findPage(eq(Side.ITEM_OWNER), eq(owner.getId()), eq(State.REJECTED),
+                any(LocalDateTime.class), any(BookingCursor.class), eq(PageRequest.of(0, 1)));
     }
 
     @Test
-    void shouldThrowNotAvailableExceptionWhenUserNotHaveItems() {
-        assertThrows(NotAvailableException.class,
-                () -> bookingService.getBookingsByUserId(user.getId(), "ALL", 1, 1));
+    void shouldThrowIncorrectParameterExceptionWhenCursorIsBroken() {
+        assertThrows(IncorrectParameterException.class,
+                () -> bookingService.getBookingsByBookerIdAfter(user.getId(), "ALL", "не курсор", 1));
+        verifyNoInteractions(bookingRepository);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,177 @@
+package ru.practicum.shareit.etag;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemWithRequestDto;
+import ru.practicum.shareit.item.search.LikeItemSearchEngine;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.service.UserServiceImpl;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Версии списков меняются вместе с записью строк, которые в них выводятся, и когда начинается
+ * или заканчивается бронирование пользователя.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BookingServiceImpl.class, ItemServiceImpl.class, UserServiceImpl.class, LikeItemSearchEngine.class,
+        ListsVersionRepository.class})
+class ListsVersionTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UserDto owner;
+    private UserDto booker;
+    private Long itemId;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        owner = userService.create(UserDto.builder()
+                .name("Owner")
+                .email("owner@email.ru")
+                .build());
+        booker = userService.create(UserDto.builder()
+                .name("Booker")
+                .email("booker@email.ru")
+                .build());
+        ItemWithRequestDto itemDto = new ItemWithRequestDto();
+        itemDto.setName("Дрель");
+        itemDto.setDescription("Простая дрель");
+        itemDto.setAvailable(true);
+        itemId = itemService.create(itemDto, owner.getId()).getId();
+        start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        // вещи и бронирования удаляются каскадом
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    void shouldKeepETagsWhileListsDoNotChange() {
+        createBooking();
+
+        assertEquals(bookingService.getBookingsByBookerIdETag(booker.getId(), "FUTURE"),
+                bookingService.getBookingsByBookerIdETag(booker.getId(), "FUTURE"));
+        assertEquals(itemService.getAllByUserIdETag(owner.getId()), itemService.getAllByUserIdETag(owner.getId()));
+    }
+
+    @Test
+    void shouldChangeBookerAndOwnerETagsWhenBookingCreatedAndApproved() {
+        String bookerETag = bookingService.getBookingsByBookerIdETag(booker.getId(), "ALL");
+        String ownerETag = bookingService.getBookingsByUserIdETag(owner.getId(), "ALL");
+
+        Long bookingId = createBooking();
+        String createdBookerETag = bookingService.getBookingsByBookerIdETag(booker.getId(), "ALL");
+        String createdOwnerETag = bookingService.getBookingsByUserIdETag(owner.getId(), "ALL");
+
+        assertNotEquals(bookerETag, createdBookerETag);
+        assertNotEquals(ownerETag, createdOwnerETag);
+
+        bookingService.approve(owner.getId(), bookingId, true);
+
+        assertNotEquals(createdBookerETag, bookingService.getBookingsByBookerIdETag(booker.getId(), "ALL"));
+        assertNotEquals(createdOwnerETag, bookingService.getBookingsByUserIdETag(owner.getId(), "ALL"));
+    }
+
+    @Test
+    void shouldChangeBookerETagWhenBookedItemUpdated() {
+        createBooking();
+        String eTag = bookingService.getBookingsByBookerIdETag(booker.getId(), "ALL");
+
+        itemService.update(ItemDto.builder().name("Перфоратор").build(), owner.getId(), itemId);
+
+        assertNotEquals(eTag, bookingService.getBookingsByBookerIdETag(booker.getId(), "ALL"));
+    }
+
+    @Test
+    void shouldChangeOwnerETagWhenBookerRenamed() {
+        createBooking();
+        String eTag = bookingService.getBookingsByUserIdETag(owner.getId(), "ALL");
+
+        userService.update(UserDto.builder().name("Другое имя").build(), booker.getId());
+
+        assertNotEquals(eTag, bookingService.getBookingsByUserIdETag(owner.getId(), "ALL"));
+    }
+
+    @Test
+    void shouldChangeETagsWhenBookingStartsWithoutWriting() {
+        createBooking();
+        assertEquals(start, nextChange(booker));
+        assertEquals(start, nextChange(owner));
+        String bookerETag = bookingService.getBookingsByBookerIdETag(booker.getId(), "CURRENT");
+        String ownerETag = bookingService.getBookingsByUserIdETag(owner.getId(), "CURRENT");
+
+        // бронирование началось час назад
+        LocalDateTime started = LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.SECONDS);
+        jdbcTemplate.update("UPDATE bookings SET start_date = ?", started);
+        jdbcTemplate.update("UPDATE user_lists_versions SET next_change = ?", started);
+        Long version = jdbcTemplate.queryForObject("SELECT SUM(version) FROM user_lists_versions", Long.class);
+
+        String startedETag = bookingService.getBookingsByBookerIdETag(booker.getId(), "CURRENT");
+        assertNotEquals(bookerETag, startedETag);
+        assertEquals(startedETag, bookingService.getBookingsByBookerIdETag(booker.getId(), "CURRENT"));
+        assertNotEquals(ownerETag, bookingService.getBookingsByUserIdETag(owner.getId(), "CURRENT"));
+        assertEquals(started, nextChange(booker));
+        assertEquals(version, jdbcTemplate.queryForObject("SELECT SUM(version) FROM user_lists_versions",
+                Long.class));
+    }
+
+    @Test
+    void shouldFindNextChangeOnceAfterStoredOnePassed() {
+        createBooking();
+        LocalDateTime started = LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.SECONDS);
+        jdbcTemplate.update("UPDATE bookings SET start_date = ?", started);
+        jdbcTemplate.update("UPDATE user_lists_versions SET next_change = ?", started);
+        String startedETag = bookingService.getBookingsByBookerIdETag(booker.getId(), "CURRENT");
+
+        // без записи версии следующий момент изменения не ищется заново
+        jdbcTemplate.update("DELETE FROM bookings");
+
+        assertEquals(startedETag, bookingService.getBookingsByBookerIdETag(booker.getId(), "CURRENT"));
+    }
+
+    private LocalDateTime nextChange(UserDto user) {
+        return jdbcTemplate.queryForObject("SELECT next_change FROM user_lists_versions WHERE user_id = ?",
+                LocalDateTime.class, user.getId());
+    }
+
+    private Long createBooking() {
+        return bookingService.create(BookingDto.builder()
+                .itemId(itemId)
+                .start(start)
+                .end(start.plusHours(12))
+                .build(), booker.getId()).getId();
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.exception;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingOverlapExceptionTest {
+
+    @Test
+    void shouldExceptionThrowing() {
+        String expectedMessage = "Текст ошибки";
+
+        BookingOverlapException exception = assertThrows(BookingOverlapException.class, () -> {
+            throw new BookingOverlapException(expectedMessage);
+        });
+
+        assertThat(exception).isNotNull();
+        assertThat(exception.getMessage()).isEqualTo(expectedMessage);
+    }
+
+}
\ No newline at end of file
@@ -6,11 +6,13 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemCursor;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemOutputDto;
 import ru.practicum.shareit.item.dto.ItemWithRequestDto;
@@ -18,6 +20,7 @@ import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.model.ItemMapper;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.pagination.CursorCodec;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -27,6 +30,7 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -104,6 +108,22 @@ class ItemControllerTest {
         verify(itemService, times(1)).getAllByUserId(anyLong(), anyInt(), anyInt());
     }
 
+    @Test
+    void shouldGetItemsAfterCursorAndReturnNextCursor() throws Exception {
+        when(itemService.getAllByUserIdAfter(anyLong(), anyString(), anyInt())).thenReturn(List.of(itemOutputDto));
+
+        mvc.perform(get("/items")
+                        .param("cursor", "abc")
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorCodec.HEADER, new ItemCursor(itemOutputDto.getId()).encode()))
+                .andExpect(jsonPath("$.[0].id", is(itemOutputDto.getId()), Long.class));
+
+        verify(itemService, times(1)).getAllByUserIdAfter(1L, "abc", 1);
+        verify(itemService, never()).getAllByUserId(anyLong(), anyInt(), anyInt());
+    }
+
     @Test
     void shouldCreateItem() throws Exception {
         when(itemService.create(any(ItemWithRequestDto.class), anyLong())).thenReturn(itemWithRequestDto);
@@ -185,4 +205,17 @@ class ItemControllerTest {
         verify(itemService, times(1)).createComment(anyLong(), anyLong(), any());
     }
 
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnNotModifiedWithoutLoadingItems() throws Exception {
+        when(itemService.getAllByUserIdETag(1L)).thenReturn("W/\"1\"");
+
+        mvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", 1L)
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1\""));
+
+        verify(itemService, never()).getAllByUserId(anyLong(), anyInt(), anyInt());
+    }
+}
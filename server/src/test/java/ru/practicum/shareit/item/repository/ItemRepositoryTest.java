@@ -6,7 +6,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemOutputDto;
+import ru.practicum.shareit.item.dto.ItemWithRequestDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
@@ -76,20 +80,58 @@ class ItemRepositoryTest {
         itemRequestRepository.deleteAll();
     }
 
+    @Test
+    void shouldSeekItemsByOwnerIdAfterCursor() {
+        List<ItemOutputDto> items = itemRepository.findByOwnerIdAndIdGreaterThanOrderById(user.getId(),
+                item.getId(), PageRequest.of(0, 10));
+
+        assertEquals(List.of(new ItemOutputDto(otherItem, null, null)), items);
+    }
+
     @Test
     void shouldGetItemsByText() {
-        List<Item> items = itemRepository.search("очень", PageRequest.of(0, 10));
+        List<ItemDto> items = itemRepository.search("очень", PageRequest.of(0, 10));
 
         assertEquals(items.size(), 1);
-        assertEquals(items, List.of(item));
+        assertEquals(items, List.of(ItemMapper.toItemDto(item)));
+    }
+
+    @Test
+    void shouldNotGetUnavailableItemsByDescription() {
+        otherItem.setAvailable(false);
+        itemRepository.save(otherItem);
+
+        List<ItemDto> items = itemRepository.search("компьютер", PageRequest.of(0, 10));
+
+        assertTrue(items.isEmpty());
+    }
+
+    @Test
+    void shouldRankNameMatchesBeforeDescriptionMatches() {
+        Item shelf = itemRepository.save(Item.builder()
+                .name("Полка")
+                .description("Нужная вещь")
+                .available(true)
+                .owner(user)
+                .build());
+        Item trinket = itemRepository.save(Item.builder()
+                .name("Вещица")
+                .description("Маленькая")
+                .available(true)
+                .owner(user)
+                .build());
+
+        assertEquals(List.of(ItemMapper.toItemDto(item), ItemMapper.toItemDto(trinket)),
+                itemRepository.searchRanked("ВЕЩ", PageRequest.of(0, 2)));
+        assertEquals(List.of(ItemMapper.toItemDto(shelf)), itemRepository.searchRanked("ВЕЩ", PageRequest.of(1, 2)));
     }
 
     @Test
-    void shouldGetAllItemWithRequests() {
-        List<Item> items = itemRepository.getAllWithRequests();
+    void shouldGetAllItemsByRequestIds() {
+        List<ItemWithRequestDto> items = itemRepository.getAllByRequestIds(List.of(itemRequest.getId()));
 
         assertEquals(items.size(), 1);
-        assertEquals(items.get(0).getRequest(), itemRequest);
+        assertEquals(items.get(0), new ItemWithRequestDto(item, itemRequest.getId()));
     }
 
 
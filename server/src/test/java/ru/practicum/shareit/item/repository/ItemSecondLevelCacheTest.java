@@ -0,0 +1,139 @@
+package ru.practicum.shareit.item.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.etag.ListsVersionRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.service.UserServiceImpl;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * READ_WRITE-кэш не отдает записи, попавшие в него после начала текущей транзакции,
+ * поэтому каждое чтение выполняется в отдельной транзакции, а данные фиксируются в БД.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles({"test", "l2cache"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({UserServiceImpl.class, ListsVersionRepository.class})
+class ItemSecondLevelCacheTest {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User owner;
+    private Item item;
+    private ItemRequest itemRequest;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(User.builder()
+                .name("Owner")
+                .email("owner@email.ru")
+                .build());
+        itemRequest = itemRequestRepository.save(ItemRequest.builder()
+                .description("Нужна дрель")
+                .requestor(owner)
+                .created(LocalDateTime.now())
+                .build());
+        item = itemRepository.save(Item.builder()
+                .name("Дрель")
+                .description("Простая дрель")
+                .available(true)
+                .owner(owner)
+                .request(itemRequest)
+                .build());
+
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        itemRepository.deleteAll();
+        itemRequestRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void shouldReadItemWithOwnerAndRequestFromCacheAfterFirstLoad() {
+        loadItemWithAssociations();
+        loadItemWithAssociations();
+
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(3, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void shouldCacheItemsByRequestIdQuery() {
+        itemRepository.getAllByRequestId(itemRequest.getId());
+        List<Item> cached = itemRepository.getAllByRequestId(itemRequest.getId());
+
+        assertEquals(item.getId(), cached.get(0).getId());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Вещи и запросы пользователя удаляются каскадом в БД - Hibernate об этом не знает.
+     */
+    @Test
+    void shouldNotReadItemsAndRequestsOfDeletedUserFromCache() {
+        loadItemWithAssociations();
+        itemRepository.getAllByRequestId(itemRequest.getId());
+
+        userService.delete(owner.getId());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(itemRepository.findById(item.getId()).isEmpty());
+            assertTrue(itemRequestRepository.findById(itemRequest.getId()).isEmpty());
+        });
+        assertTrue(itemRepository.getAllByRequestId(itemRequest.getId()).isEmpty());
+    }
+
+    private void loadItemWithAssociations() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Item found = itemRepository.findById(item.getId()).orElseThrow();
+            found.getOwner().getName();
+            found.getRequest().getDescription();
+        });
+    }
+}
@@ -0,0 +1,88 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Только на PostgreSQL с pg_trgm, в H2 этих функций и индексов нет. Запуск:
+ * SHAREIT_TEST_POSTGRES_URL=jdbc:postgresql://localhost:5432/shareit_test?user=...&amp;password=... mvn test.
+ * Схема базы пересоздается скриптами сервера. Локаль базы - UTF-8: в локали C upper() и pg_trgm
+ * не видят кириллических букв.
+ */
+@EnabledIfEnvironmentVariable(named = "SHAREIT_TEST_POSTGRES_URL", matches = ".+")
+class TrigramItemSearchEngineTest {
+
+    private static final int OTHER_ITEMS = 20_000;
+
+    private JdbcTemplate jdbcTemplate;
+    private TrigramItemSearchEngine searchEngine;
+    private long ownerId;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = new DriverManagerDataSource(System.getenv("SHAREIT_TEST_POSTGRES_URL"));
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"),
+                new ClassPathResource("schema-postgresql.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        ownerId = jdbcTemplate.queryForObject("INSERT INTO users (name, email) VALUES ('Владелец', 'owner@mail.ru') " +
+                "RETURNING id", Long.class);
+        jdbcTemplate.update("INSERT INTO items (name, description, is_available, owner_id) " +
+                "SELECT 'Вещь ' || g, 'Описание ' || md5(g::text), true, ? FROM generate_series(1, ?) g",
+                ownerId, OTHER_ITEMS);
+        searchEngine = new TrigramItemSearchEngine(mock(ItemRepository.class), jdbcTemplate);
+    }
+
+    @Test
+    void shouldRankItemsBySimilarity() {
+        long drill = insertItem("Дрель", "Сверлит бетон", true);
+        long holder = insertItem("Держатель", "Для набора сверл", true);
+        long bits = insertItem("Сверла по бетону", "Пять штук", true);
+        long longSet = insertItem("Большой набор сверл", "В кейсе", true);
+        long set = insertItem("Набор сверл", "В коробке", true);
+        insertItem("Набор сверл", "Потерялся", false);
+
+        List<Long> found = searchEngine.search("сверл", PageRequest.of(0, 10)).stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+
+        assertEquals(List.of(set, longSet, bits, holder, drill), found);
+        assertEquals(List.of(bits, holder), searchEngine.search("сверл", PageRequest.of(1, 2)).stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void shouldFindItemsByTrigramIndexes() {
+        insertItem("Набор сверл", "В коробке", true);
+        jdbcTemplate.execute("ANALYZE items");
+
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + TrigramItemSearchEngine.SEARCH,
+                String.class, "сверл", "сверл", 10L, "сверл", "сверл", "сверл", 10L, 10, 0L));
+
+        assertTrue(plan.contains("idx_items_name_trgm"), plan);
+        assertTrue(plan.contains("idx_items_description_trgm"), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    private long insertItem(String name, String description, boolean available) {
+        return jdbcTemplate.queryForObject("INSERT INTO items (name, description, is_available, owner_id) " +
+                "VALUES (?, ?, ?, ?) RETURNING id", Long.class, name, description, available, ownerId);
+    }
+}
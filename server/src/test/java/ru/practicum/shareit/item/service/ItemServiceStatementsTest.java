@@ -0,0 +1,152 @@
+package ru.practicum.shareit.item.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.etag.ListsVersionRepository;
+import ru.practicum.shareit.item.dto.ItemOutputDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+import ru.practicum.shareit.item.search.LikeItemSearchEngine;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.service.UserServiceImpl;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Страница вещей владельца: вещи, сводки бронирований и отзывы - по одному запросу на страницу,
+ * сколько бы вещей на ней ни было.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ItemServiceImpl.class, UserServiceImpl.class, LikeItemSearchEngine.class, ListsVersionRepository.class})
+class ItemServiceStatementsTest {
+
+    private static final int ITEMS = 6;
+    private static final int COMMENTS_PER_ITEM = 2;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = entityManager.persist(User.builder()
+                .name("Owner")
+                .email("owner@email.ru")
+                .build());
+        User booker = entityManager.persist(User.builder()
+                .name("Booker")
+                .email("booker@email.ru")
+                .build());
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ITEMS; i++) {
+            Item item = entityManager.persist(Item.builder()
+                    .name("Вещь " + i)
+                    .description("Простая вещь")
+                    .available(true)
+                    .owner(owner)
+                    .build());
+            Booking last = entityManager.persist(Booking.builder()
+                    .item(item)
+                    .booker(booker)
+                    .start(now.minusDays(2))
+                    .end(now.minusDays(1))
+                    .status(Status.APPROVED)
+                    .build());
+            Booking next = entityManager.persist(Booking.builder()
+                    .item(item)
+                    .booker(booker)
+                    .start(now.plusDays(1))
+                    .end(now.plusDays(2))
+                    .status(Status.APPROVED)
+                    .build());
+            entityManager.persist(ItemBookingSummary.builder()
+                    .itemId(item.getId())
+                    .lastBookingId(last.getId())
+                    .lastBookerId(booker.getId())
+                    .lastStart(last.getStart())
+                    .lastEnd(last.getEnd())
+                    .nextBookingId(next.getId())
+                    .nextBookerId(booker.getId())
+                    .nextStart(next.getStart())
+                    .nextEnd(next.getEnd())
+                    .build());
+            for (int j = 0; j < COMMENTS_PER_ITEM; j++) {
+                entityManager.persist(Comment.builder()
+                        .text("Отзыв " + j)
+                        .item(item)
+                        .author(booker)
+                        .created(now.minusHours(j))
+                        .build());
+            }
+        }
+        entityManager.flush();
+
+        userService.checkUserIfExists(owner.getId());
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, ITEMS / 2, ITEMS})
+    void shouldGetOwnerItemsPageInConstantNumberOfStatements(int size) {
+        List<ItemOutputDto> items = itemService.getAllByUserId(owner.getId(), 0, size);
+
+        assertEquals(size, items.size());
+        items.forEach(item -> {
+            assertNotNull(item.getLastBooking());
+            assertNotNull(item.getNextBooking());
+            assertEquals(COMMENTS_PER_ITEM, item.getComments().size());
+        });
+        // вещи, сводки бронирований, отзывы
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, ITEMS / 2, ITEMS})
+    void shouldRecalculateOutdatedSummariesInConstantNumberOfStatements(int size) {
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE item_booking_summaries SET next_start_date = TIMESTAMP '1970-01-01 00:00:00'")
+                .executeUpdate();
+        statistics.clear();
+
+        List<ItemOutputDto> items = itemService.getAllByUserId(owner.getId(), 0, size);
+
+        assertEquals(size, items.size());
+        items.forEach(item -> {
+            assertNotNull(item.getLastBooking());
+            assertNotNull(item.getNextBooking());
+        });
+        // к сводкам добавляются последние и ближайшие бронирования всех устаревших вещей страницы
+        assertEquals(5, statistics.getPrepareStatementCount());
+    }
+}
@@ -12,18 +12,24 @@ import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingMapper;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.etag.ListsVersionRepository;
 import ru.practicum.shareit.exception.IncorrectParameterException;
 import ru.practicum.shareit.exception.NotOwnerException;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemCommentDto;
+import ru.practicum.shareit.item.dto.ItemCursor;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemOutputDto;
 import ru.practicum.shareit.item.dto.ItemWithRequestDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.CommentMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
 import ru.practicum.shareit.item.model.ItemMapper;
 import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemBookingSummaryRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
@@ -31,6 +37,7 @@ import ru.practicum.shareit.user.service.UserServiceImpl;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -59,6 +66,15 @@ class ItemServiceTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private ItemSearchEngine itemSearchEngine;
+
+    @Mock
+    private ItemBookingSummaryRepository bookingSummaryRepository;
+
+    @Mock
+    private ListsVersionRepository listsVersionRepository;
+
     private User user;
     private User owner;
     private Item item;
@@ -70,6 +86,7 @@ class ItemServiceTest {
     private ItemOutputDto itemOutputDto;
     private ItemRequest itemRequest;
     private ItemWithRequestDto itemWithRequestDto;
+    private ItemBookingSummary summary;
 
     @BeforeEach
     void setUp() {
@@ -129,6 +146,7 @@ class ItemServiceTest {
 
         comment = Comment.builder()
                 .id(1L)
+                .item(item)
                 .author(user)
                 .created(LocalDateTime.now())
                 .text("Отличная вещь!")
@@ -140,13 +158,28 @@ class ItemServiceTest {
 
         itemOutputDto.setComments(CommentMapper.toCommentsDto(List.of(comment)));
         itemWithRequestDto = new ItemWithRequestDto(item, itemRequest.getId());
+
+        summary = ItemBookingSummary.builder()
+                .itemId(item.getId())
+                .lastBookingId(booking.getId())
+                .lastBookerId(user.getId())
+                .lastStart(booking.getStart())
+                .lastEnd(booking.getEnd())
+                .nextBookingId(otherBooking.getId())
+                .nextBookerId(user.getId())
+                .nextStart(otherBooking.getStart())
+                .nextEnd(otherBooking.getEnd())
+                .version(3L)
+                .build();
     }
 
     @Test
     void shouldGetAllItemByUserId() {
-        when(bookingRepository.findAllByItemOwnerId(anyLong())).thenReturn(List.of(booking, otherBooking));
-        when(itemRepository.findByOwnerIdOrderById(anyLong(), any(PageRequest.class))).thenReturn(List.of(item));
-        when(commentRepository.findCommentsByItemIdWithUserAndItem(anyLong())).thenReturn(List.of(comment));
+        when(itemRepository.findByOwnerIdOrderById(anyLong(), any(PageRequest.class)))
+                .thenReturn(List.of(new ItemOutputDto(item, null, null)));
+        when(bookingSummaryRepository.findAllById(List.of(item.getId()))).thenReturn(List.of(summary));
+        when(commentRepository.findCommentsByItemIds(anyCollection())).thenReturn(List.of(new ItemCommentDto(
+                item.getId(), comment.getId(), comment.getText(), comment.getAuthor().getName(), comment.getCreated())));
 
         List<ItemOutputDto> items = itemService.getAllByUserId(owner.getId(), 0, 10);
 
@@ -154,6 +187,57 @@ class ItemServiceTest {
 
         verify(itemRepository, times(1))
                 .findByOwnerIdOrderById(anyLong(), any(PageRequest.class));
+        verify(commentRepository, never()).findCommentsByItemIdWithUserAndItem(anyLong());
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void shouldRecomputeStartedBookingSummaryOnRead() {
+        summary.setNextStart(LocalDateTime.now().minusMinutes(1));
+        when(itemRepository.findByOwnerIdOrderById(anyLong(), any(PageRequest.class)))
+                .thenReturn(List.of(new ItemOutputDto(item, null, null)));
+        when(bookingSummaryRepository.findAllById(List.of(item.getId()))).thenReturn(List.of(summary));
+        when(bookingRepository.findLastBookingsByItemIds(eq(List.of(item.getId())), eq(Status.APPROVED),
+                any(LocalDateTime.class))).thenReturn(List.of(otherBooking));
+
+        List<ItemOutputDto> items = itemService.getAllByUserId(owner.getId(), 0, 10);
+
+        assertEquals(BookingMapper.toBookingShortDto(otherBooking), items.get(0).getLastBooking());
+        assertNull(items.get(0).getNextBooking());
+        verify(bookingSummaryRepository, never()).save(any(ItemBookingSummary.class));
+    }
+
+    @Test
+    void shouldGetItemsByUserIdAfterCursor() {
+        when(itemRepository.findByOwnerIdAndIdGreaterThanOrderById(anyLong(), anyLong(), any(PageRequest.class)))
+                .thenReturn(List.of(new ItemOutputDto(item, null, null)));
+        when(commentRepository.findCommentsByItemIds(anyCollection())).thenReturn(List.of(new ItemCommentDto(
+                item.getId(), comment.getId(), comment.getText(), comment.getAuthor().getName(), comment.getCreated())));
+
+        List<ItemOutputDto> items = itemService.getAllByUserIdAfter(owner.getId(), new ItemCursor(0L).encode(), 10);
+
+        assertEquals(1, items.size());
+        verify(itemRepository, times(1))
+                .findByOwnerIdAndIdGreaterThanOrderById(owner.getId(), 0L, PageRequest.of(0, 10));
+        verify(itemRepository, never()).findByOwnerIdOrderById(anyLong(), any(PageRequest.class));
+    }
+
+    @Test
+    void shouldThrowIncorrectParameterExceptionWhenCursorIsBroken() {
+        assertThrows(IncorrectParameterException.class, () -> itemService.getAllByUserIdAfter(owner.getId(),
+                "не курсор", 10));
+
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void shouldNotLoadBookingsWhenUserHasNoItems() {
+        when(itemRepository.findByOwnerIdOrderById(anyLong(), any(PageRequest.class))).thenReturn(List.of());
+
+        List<ItemOutputDto> items = itemService.getAllByUserId(owner.getId(), 0, 10);
+
+        assertTrue(items.isEmpty());
+        verifyNoInteractions(bookingRepository, commentRepository);
     }
 
     @Test
@@ -170,7 +254,7 @@ class ItemServiceTest {
 
     @Test
     void shouldGetItemById() {
-        when(bookingRepository.findAllByItemOwnerId(anyLong())).thenReturn(List.of(booking, otherBooking));
+        when(bookingSummaryRepository.findAllById(List.of(item.getId()))).thenReturn(List.of(summary));
         when(commentRepository.findCommentsByItemIdWithUserAndItem(anyLong())).thenReturn(List.of(comment));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
 
@@ -180,6 +264,62 @@ class ItemServiceTest {
 
         verify(itemRepository, times(1))
                 .findById(anyLong());
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void shouldGetItemByIdWithoutBookingsWhenNoSummary() {
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+
+        ItemOutputDto itemDto = (ItemOutputDto) itemService.getById(item.getId(), owner.getId());
+
+        assertNull(itemDto.getLastBooking());
+        assertNull(itemDto.getNextBooking());
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void shouldRefreshBookingSummaryKeepingVersion() {
+        when(bookingRepository.findFirstByItemIdAndStatusAndStartBeforeOrderByStartDesc(eq(item.getId()),
+                eq(Status.APPROVED), any(LocalDateTime.class))).thenReturn(booking);
+        when(bookingRepository.findFirstByItemIdAndStatusAndStartAfterOrderByStartAsc(eq(item.getId()),
+                eq(Status.APPROVED), any(LocalDateTime.class))).thenReturn(otherBooking);
+        when(bookingSummaryRepository.findById(item.getId())).thenReturn(Optional.of(summary));
+
+        itemService.refreshBookingSummary(item.getId());
+
+        verify(bookingSummaryRepository, times(1)).save(ItemBookingSummary.builder()
+                .itemId(item.getId())
+                .lastBookingId(booking.getId())
+                .lastBookerId(user.getId())
+                .lastStart(booking.getStart())
+                .lastEnd(booking.getEnd())
+                .nextBookingId(otherBooking.getId())
+                .nextBookerId(user.getId())
+                .nextStart(otherBooking.getStart())
+                .nextEnd(otherBooking.getEnd())
+                .version(3L)
+                .build());
+    }
+
+    @Test
+    void shouldRollStartedBookingSummaries() {
+        summary.setNextStart(LocalDateTime.now().minusMinutes(1));
+        when(bookingSummaryRepository.findByNextStartLessThanEqualOrderByNextStart(any(LocalDateTime.class),
+                eq(PageRequest.of(0, 10)))).thenReturn(List.of(summary));
+        when(bookingRepository.findLastBookingsByItemIds(eq(List.of(item.getId())), eq(Status.APPROVED),
+                any(LocalDateTime.class))).thenReturn(List.of(otherBooking));
+
+        assertEquals(1, itemService.rollBookingSummaries(10));
+
+        verify(bookingSummaryRepository, times(1)).save(ItemBookingSummary.builder()
+                .itemId(item.getId())
+                .lastBookingId(otherBooking.getId())
+                .lastBookerId(user.getId())
+                .lastStart(otherBooking.getStart())
+                .lastEnd(otherBooking.getEnd())
+                .version(3L)
+                .build());
     }
 
     @Test
@@ -203,12 +343,13 @@ class ItemServiceTest {
 
     @Test
     void shouldFindItemByText() {
-        when(itemRepository.search(anyString(), any(PageRequest.class))).thenReturn(List.of(item));
+        when(itemSearchEngine.search(anyString(), any(PageRequest.class)))
+                .thenReturn(List.of(ItemMapper.toItemDto(item)));
 
         List<ItemDto> items = itemService.search("вещь", 0, 10);
         assertEquals(items, List.of(ItemMapper.toItemDto(item)));
 
-        verify(itemRepository, times(1)).search(anyString(), any(PageRequest.class));
+        verify(itemSearchEngine, times(1)).search(anyString(), any(PageRequest.class));
     }
 
     @Test
@@ -232,15 +373,23 @@ class ItemServiceTest {
     }
 
     @Test
-    void shouldGetAllItemsWithRequests() {
-        when(itemRepository.getAllWithRequests()).thenReturn(List.of(item));
+    void shouldGetAllItemsGroupedByRequestIds() {
+        when(itemRepository.getAllByRequestIds(anyCollection()))
+                .thenReturn(List.of(new ItemWithRequestDto(item, itemRequest.getId())));
+
+        Map<Long, List<ItemWithRequestDto>> items = itemService.getAllByRequestIds(List.of(itemRequest.getId()));
 
-        List<Item> items = itemService.getAllWithRequests();
+        assertEquals(Map.of(itemRequest.getId(), List.of(itemWithRequestDto)), items);
 
-        assertEquals(items, List.of(item));
-        assertEquals(items.get(0).getRequest(), itemRequest);
+        verify(itemRepository, times(1)).getAllByRequestIds(anyCollection());
+    }
+
+    @Test
+    void shouldNotQueryItemsForEmptyRequestIds() {
+        Map<Long, List<ItemWithRequestDto>> items = itemService.getAllByRequestIds(List.of());
 
-        verify(itemRepository, times(1)).getAllWithRequests();
+        assertTrue(items.isEmpty());
+        verifyNoInteractions(itemRepository);
     }
 
     @Test
@@ -0,0 +1,38 @@
+package ru.practicum.shareit.pagination;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.IncorrectParameterException;
+import ru.practicum.shareit.item.dto.ItemCursor;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorCodecTest {
+
+    @Test
+    void shouldDecodeEncodedParts() {
+        LocalDateTime created = LocalDateTime.of(2023, 5, 1, 12, 30, 15, 123456000);
+
+        ItemRequestCursor cursor = ItemRequestCursor.decode(new ItemRequestCursor(created, 42L).encode());
+
+        assertEquals(created, cursor.getCreated());
+        assertEquals(42L, cursor.getId());
+        assertEquals(7L, ItemCursor.decode(new ItemCursor(7L).encode()).getId());
+    }
+
+    @Test
+    void shouldReturnNextCursorOnlyForFullPage() {
+        assertEquals("3", CursorCodec.next(List.of(1, 2, 3), 3, String::valueOf));
+        assertNull(CursorCodec.next(List.of(1, 2), 3, String::valueOf));
+    }
+
+    @Test
+    void shouldThrowIncorrectParameterExceptionWhenCursorIsBroken() {
+        assertThrows(IncorrectParameterException.class, () -> ItemCursor.decode("%%%"));
+        assertThrows(IncorrectParameterException.class, () -> ItemRequestCursor.decode("MTIz"));
+        assertThrows(IncorrectParameterException.class, () -> ItemRequestCursor.decode(CursorCodec.encode("x", 1)));
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
@@ -16,16 +17,19 @@ import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.model.ItemRequestMapper;
 import ru.practicum.shareit.request.service.ItemRequestService;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.pagination.CursorCodec;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.hamcrest.core.Is.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -130,4 +134,34 @@ class ItemRequestControllerTest {
 
         verify(itemRequestService, times(1)).getAllRequests(anyInt(), anyInt(), anyLong());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldGetAllRequestsAfterCursorWithoutNextCursorOnLastPage() throws Exception {
+        when(itemRequestService.getAllRequestsAfter(anyString(), anyInt(), anyLong()))
+                .thenReturn(List.of(itemRequestDto));
+
+        mvc.perform(get("/requests/all")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("cursor", "abc")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CursorCodec.HEADER))
+                .andExpect(jsonPath("$.[0].id", is(itemRequestDto.getId()), Long.class));
+
+        verify(itemRequestService, times(1)).getAllRequestsAfter("abc", 10, 1L);
+        verify(itemRequestService, never()).getAllRequests(anyInt(), anyInt(), anyLong());
+    }
+
+    @Test
+    void shouldReturnNotModifiedWithoutLoadingRequests() throws Exception {
+        when(itemRequestService.getAllRequestsETag(1L)).thenReturn("W/\"1\"");
+
+        mvc.perform(get("/requests/all")
+                        .header("X-Sharer-User-Id", 1L)
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1\""));
+
+        verify(itemRequestService, never()).getAllRequests(anyInt(), anyInt(), anyLong());
+    }
+}
@@ -0,0 +1,164 @@
+package ru.practicum.shareit.request.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.etag.ListsVersionRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.search.LikeItemSearchEngine;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserServiceImpl;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ItemRequestServiceImpl.class, ItemServiceImpl.class, UserServiceImpl.class, LikeItemSearchEngine.class,
+        ListsVersionRepository.class})
+class ItemRequestServiceStatementsTest {
+
+    private static final int REQUESTS = 5;
+    private static final int ITEMS_PER_REQUEST = 3;
+
+    @Autowired
+    private ItemRequestService itemRequestService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ListsVersionRepository listsVersionRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User requestor;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        requestor = entityManager.persist(User.builder()
+                .name("Requestor")
+                .email("requestor@email.ru")
+                .build());
+        owner = entityManager.persist(User.builder()
+                .name("Owner")
+                .email("owner@email.ru")
+                .build());
+        listsVersionRepository.create(owner.getId());
+
+        for (int i = 0; i < REQUESTS; i++) {
+            ItemRequest itemRequest = entityManager.persist(ItemRequest.builder()
+                    .description("Запрос " + i)
+                    .requestor(requestor)
+                    .created(LocalDateTime.now().minusHours(i))
+                    .build());
+            for (int j = 0; j < ITEMS_PER_REQUEST; j++) {
+                entityManager.persist(Item.builder()
+                        .name("Вещь " + i + j)
+                        .description("Ответ на запрос " + i)
+                        .available(true)
+                        .owner(owner)
+                        .request(itemRequest)
+                        .build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void shouldGetOwnRequestsInConstantNumberOfStatements() {
+        List<ItemRequestDto> requests = itemRequestService.getRequests(requestor.getId());
+
+        assertEquals(REQUESTS, requests.size());
+        requests.forEach(request -> assertEquals(ITEMS_PER_REQUEST, request.getItems().size()));
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldGetRequestsPageInConstantNumberOfStatements() {
+        List<ItemRequestDto> requests = itemRequestService.getAllRequests(0, REQUESTS, owner.getId());
+
+        assertEquals(REQUESTS, requests.size());
+        requests.forEach(request -> assertEquals(ITEMS_PER_REQUEST, request.getItems().size()));
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldSeekRequestsFeedAfterCursor() {
+        List<ItemRequestDto> firstPage = itemRequestService.getAllRequests(0, 2, owner.getId());
+        String cursor = ItemRequestCursor.next(firstPage, 2);
+        List<ItemRequestDto> secondPage = itemRequestService.getAllRequestsAfter(cursor, 10, owner.getId());
+
+        List<Long> ids = new ArrayList<>();
+        firstPage.forEach(request -> ids.add(request.getId()));
+        secondPage.forEach(request -> ids.add(request.getId()));
+
+        assertEquals(REQUESTS, ids.size());
+        assertEquals(REQUESTS, new HashSet<>(ids).size());
+        assertTrue(firstPage.get(1).getCreated().isAfter(secondPage.get(0).getCreated()));
+    }
+
+    @Test
+    void shouldChangeFeedETagOnlyWhenFeedRowsChange() {
+        String eTag = itemRequestService.getAllRequestsETag(owner.getId());
+        statistics.clear();
+
+        assertEquals(eTag, itemRequestService.getAllRequestsETag(owner.getId()));
+        // версия ленты читается одной строкой через JDBC, без запросов Hibernate
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        Item item = itemService.getFirstByUserId(owner.getId());
+        itemService.update(ItemDto.builder().name("Другая вещь").build(), owner.getId(), item.getId());
+
+        assertNotEquals(eTag, itemRequestService.getAllRequestsETag(owner.getId()));
+    }
+
+    @Test
+    void shouldChangeFeedETagWhenRequestCreated() {
+        String eTag = itemRequestService.getAllRequestsETag(owner.getId());
+
+        itemRequestService.create(requestor.getId(), ItemRequestDto.builder()
+                .description("Новый запрос")
+                .build());
+
+        assertNotEquals(eTag, itemRequestService.getAllRequestsETag(owner.getId()));
+    }
+
+    @Test
+    void shouldChangeOwnerItemsETagWhenItemUpdated() {
+        String eTag = itemService.getAllByUserIdETag(owner.getId());
+        Item item = itemService.getFirstByUserId(owner.getId());
+
+        itemService.update(ItemDto.builder().available(false).build(), owner.getId(), item.getId());
+        entityManager.flush();
+
+        assertNotEquals(eTag, itemService.getAllByUserIdETag(owner.getId()));
+    }
+}
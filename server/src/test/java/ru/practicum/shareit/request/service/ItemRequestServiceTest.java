@@ -8,9 +8,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.TestPropertySource;
+import ru.practicum.shareit.etag.ListsVersionRepository;
+import ru.practicum.shareit.exception.IncorrectParameterException;
 import ru.practicum.shareit.item.dto.ItemWithRequestDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.model.ItemRequestMapper;
@@ -21,10 +24,12 @@ import ru.practicum.shareit.user.service.UserServiceImpl;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -44,6 +49,9 @@ class ItemRequestServiceTest {
     @Mock
     private ItemServiceImpl itemService;
 
+    @Mock
+    private ListsVersionRepository listsVersionRepository;
+
     private User user;
     private User owner;
     private Item item;
@@ -99,8 +107,10 @@ class ItemRequestServiceTest {
 
     @Test
     void shouldGetAllRequestsByRequestor() {
-        when(itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(anyLong())).thenReturn(List.of(itemRequest));
-        when(itemService.getAllWithRequests()).thenReturn(List.of(item));
+        when(itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(anyLong()))
+                .thenReturn(List.of(ItemRequestMapper.toItemRequestDto(itemRequest)));
+        when(itemService.getAllByRequestIds(anyCollection()))
+                .thenReturn(Map.of(itemRequest.getId(), List.of(itemWithRequestDto)));
 
         List<ItemRequestDto> outputItemRequests = itemRequestService.getRequests(user.getId());
         itemRequestDto.setItems(List.of(itemWithRequestDto));
@@ -125,7 +135,7 @@ class ItemRequestServiceTest {
     @Test
     void shouldGetAllRequests() {
         when(itemRequestRepository.findAllByRequestorIdIsNot(anyLong(), any(PageRequest.class)))
-                .thenReturn(List.of(itemRequest));
+                .thenReturn(List.of(ItemRequestMapper.toItemRequestDto(itemRequest)));
 
         itemRequestDto.setItems(new ArrayList<>());
         List<ItemRequestDto> items = itemRequestService.getAllRequests(0, 10, owner.getId());
@@ -134,6 +144,30 @@ class ItemRequestServiceTest {
 
         verify(itemRequestRepository, times(1))
                 .findAllByRequestorIdIsNot(anyLong(), any(PageRequest.class));
+        verify(itemService, times(1)).getAllByRequestIds(List.of(itemRequest.getId()));
+        verify(itemService, never()).getAllByRequestId(anyLong());
+    }
+
+    @Test
+    void shouldGetAllRequestsAfterCursor() {
+        String cursor = new ItemRequestCursor(itemRequest.getCreated(), itemRequest.getId()).encode();
+        when(itemRequestRepository.findAllByRequestorIdIsNotAfter(anyLong(), any(LocalDateTime.class), anyLong(),
+                any(PageRequest.class))).thenReturn(List.of(ItemRequestMapper.toItemRequestDto(itemRequest)));
+
+        itemRequestDto.setItems(new ArrayList<>());
+        List<ItemRequestDto> items = itemRequestService.getAllRequestsAfter(cursor, 10, owner.getId());
+
+        assertEquals(items, List.of(itemRequestDto));
+
+        verify(itemRequestRepository, times(1)).findAllByRequestorIdIsNotAfter(owner.getId(),
+                itemRequest.getCreated(), itemRequest.getId(), PageRequest.of(0, 10));
+        verify(itemRequestRepository, never()).findAllByRequestorIdIsNot(anyLong(), any(PageRequest.class));
+    }
+
+    @Test
+    void shouldThrowIncorrectParameterExceptionWhenCursorIsBroken() {
+        assertThrows(IncorrectParameterException.class, () -> itemRequestService.getAllRequestsAfter("###", 10,
+                owner.getId()));
     }
 
-}
\ No newline at end of file
+}
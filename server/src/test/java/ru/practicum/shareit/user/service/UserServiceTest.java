@@ -1,36 +1,52 @@
 package ru.practicum.shareit.user.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.Cache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.context.TestPropertySource;
+import ru.practicum.shareit.etag.ListsVersionRepository;
+import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.UniqueViolatedException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.model.UserMapper;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 @TestPropertySource(properties = {"db.name=test"})
 class UserServiceTest {
 
-    @InjectMocks
     private UserServiceImpl userService;
 
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ListsVersionRepository listsVersionRepository;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private Cache cache;
+
     private User user;
     private User owner;
     private UserDto userDto;
@@ -38,6 +54,10 @@ class UserServiceTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(entityManagerFactory.getCache()).thenReturn(cache);
+        lenient().when(cache.unwrap(Cache.class)).thenReturn(cache);
+        userService = new UserServiceImpl(userRepository, listsVersionRepository, entityManagerFactory,
+                Duration.ofMinutes(1), 100);
 
         user = User.builder()
                 .id(1L)
@@ -93,10 +113,15 @@ class UserServiceTest {
     @Test
     void shouldDeleteUser() {
         doNothing().when(userRepository).deleteById(anyLong());
+        when(userRepository.findItemIdsDeletedWithUser(user.getId())).thenReturn(List.of(3L));
+        when(userRepository.findRequestIdsByRequestorId(user.getId())).thenReturn(List.of(4L));
 
         userService.delete(user.getId());
 
         verify(userRepository, times(1)).deleteById(anyLong());
+        verify(cache, times(1)).evict(Item.class, 3L);
+        verify(cache, times(1)).evict(ItemRequest.class, 4L);
+        verify(cache, times(1)).evictQueryRegions();
     }
 
     @Test
@@ -108,4 +133,97 @@ class UserServiceTest {
                 () -> userService.update(userDto, user.getId()));
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldLoadUserOnceWhenCheckedRepeatedly() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+
+        userService.checkUserIfExists(user.getId());
+        userService.checkUserIfExists(user.getId());
+        User cached = userService.returnUserIfExists(user.getId());
+
+        assertEquals(user, cached);
+        assertNotSame(user, cached);
+        verify(userRepository, times(1)).findById(user.getId());
+        verify(userRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    void shouldNotChangeCachedUserWhenCallerChangesCopy() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+
+        userService.returnUserIfExists(user.getId());
+        userService.returnUserIfExists(user.getId()).setName("Изменено");
+
+        assertEquals("User", userService.returnUserIfExists(user.getId()).getName());
+    }
+
+    @Test
+    void shouldReloadUserAfterUpdate() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenReturn(user);
+
+        userService.checkUserIfExists(user.getId());
+        userService.update(UserDto.builder().name("Новое имя").build(), user.getId());
+        userService.checkUserIfExists(user.getId());
+
+        verify(userRepository, times(3)).findById(user.getId());
+    }
+
+    @Test
+    void shouldReturnCopyOnCacheMiss() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+
+        User loaded = userService.returnUserIfExists(user.getId());
+
+        assertEquals(user, loaded);
+        assertNotSame(user, loaded);
+    }
+
+    @Test
+    void shouldUpdateLoadedUserEvenWhenCached() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenReturn(user);
+
+        userService.checkUserIfExists(user.getId());
+        userService.update(UserDto.builder().name("Новое имя").build(), user.getId());
+
+        verify(userRepository, times(1)).save(same(user));
+    }
+
+    @Test
+    void shouldThrowNotFoundExceptionAfterDelete() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user)).thenReturn(Optional.empty());
+
+        userService.checkUserIfExists(user.getId());
+        userService.delete(user.getId());
+
+        assertThrows(NotFoundException.class, () -> userService.checkUserIfExists(user.getId()));
+    }
+
+    @Test
+    void shouldNotCacheMissingUser() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.empty()).thenReturn(Optional.of(user));
+
+        assertThrows(NotFoundException.class, () -> userService.checkUserIfExists(user.getId()));
+        userService.checkUserIfExists(user.getId());
+
+        verify(userRepository, times(2)).findById(user.getId());
+    }
+
+    @Test
+    void shouldExposeCacheHitsAndMisses() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        userService.bindTo(registry);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+
+        userService.checkUserIfExists(user.getId());
+        userService.checkUserIfExists(user.getId());
+        userService.checkUserIfExists(user.getId());
+
+        assertEquals(2, registry.get("cache.gets").tag("cache", "users").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tag("cache", "users").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+}